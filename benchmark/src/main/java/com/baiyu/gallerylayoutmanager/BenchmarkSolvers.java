@@ -0,0 +1,25 @@
+package com.baiyu.gallerylayoutmanager;
+
+/**
+ * 基准测试共用的求解器配置
+ */
+final class BenchmarkSolvers {
+
+    static final int ITEM_SIZE = 300;
+
+    private BenchmarkSolvers() {
+    }
+
+    static GalleryLayoutSolver create(int itemCount, boolean mixedExtents) {
+        GalleryLayoutSolver solver = new GalleryLayoutSolver(new ItemExtentIndex());
+        solver.setConfig(40, 5, 0.72f);
+        solver.reset(itemCount);
+        solver.getExtents().setDefaultExtent(ITEM_SIZE);
+        if (mixedExtents) {
+            for (int position = 0; position < itemCount; position += 3) {
+                solver.getExtents().setExtent(position, ITEM_SIZE + (position % 7) * 20);
+            }
+        }
+        return solver;
+    }
+}
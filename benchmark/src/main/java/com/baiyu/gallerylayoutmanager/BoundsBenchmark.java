@@ -0,0 +1,50 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 滑动边界的计算耗时, 布局或配置变化后每次首次滑动都会计算一次
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundsBenchmark {
+
+    private static final int VIEWPORT = 1080;
+
+    @Param({"10", "10000", "10000000"})
+    int itemCount;
+
+    @Param({"false", "true"})
+    boolean mixedExtents;
+
+    private GalleryLayoutSolver mSolver;
+
+    private int mAnchor;
+
+    @Setup
+    public void setUp() {
+        mSolver = BenchmarkSolvers.create(itemCount, mixedExtents);
+        mAnchor = itemCount / 2;
+    }
+
+    @Benchmark
+    public float computeBounds() {
+        return mSolver.computeMaxOffset(0, VIEWPORT, mAnchor) - mSolver.computeMinOffset(0, VIEWPORT, mAnchor);
+    }
+}
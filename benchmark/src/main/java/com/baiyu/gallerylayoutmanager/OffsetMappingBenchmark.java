@@ -0,0 +1,69 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * offset与position互相转换的耗时, 用于snap、滚动条和页面回调
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OffsetMappingBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"10", "10000", "10000000"})
+    int itemCount;
+
+    @Param({"false", "true"})
+    boolean mixedExtents;
+
+    private GalleryLayoutSolver mSolver;
+
+    private int[] mPositions;
+
+    private long[] mOffsets;
+
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        mSolver = BenchmarkSolvers.create(itemCount, mixedExtents);
+        Random random = new Random(7);
+        long length = mSolver.getExtents().offsetOf(itemCount);
+        mPositions = new int[SAMPLES];
+        mOffsets = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            mPositions[i] = random.nextInt(itemCount);
+            mOffsets[i] = (long) (random.nextDouble() * length);
+        }
+    }
+
+    @Benchmark
+    public long positionToOffset() {
+        mIndex = (mIndex + 1) & (SAMPLES - 1);
+        return mSolver.getExtents().centerOffset(mPositions[mIndex]);
+    }
+
+    @Benchmark
+    public int offsetToPosition() {
+        mIndex = (mIndex + 1) & (SAMPLES - 1);
+        return mSolver.findNearestPosition(mOffsets[mIndex]);
+    }
+}
@@ -0,0 +1,46 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缩放系数查表与直接调用Math.pow的对比
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScaleTableBenchmark {
+
+    private static final float SCALE_RATIO = 0.72f;
+
+    private static final int SCALE_COUNT = 5;
+
+    private final ScaleTable mScaleTable = new ScaleTable(SCALE_RATIO, SCALE_COUNT);
+
+    private int mDistance;
+
+    @Benchmark
+    public float tableLookup() {
+        mDistance = (mDistance + 1) & 7;
+        return mScaleTable.boundedScale(mDistance);
+    }
+
+    @Benchmark
+    public float mathPow() {
+        mDistance = (mDistance + 1) & 7;
+        float minScale = (float) Math.pow(SCALE_RATIO, (SCALE_COUNT - 1) / 2f);
+        return Math.max(minScale, (float) Math.pow(SCALE_RATIO, mDistance));
+    }
+}
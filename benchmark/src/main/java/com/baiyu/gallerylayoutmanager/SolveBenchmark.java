@@ -0,0 +1,91 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每帧求解一次布局的耗时, 模拟从中间位置开始的连续滑动
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolveBenchmark {
+
+    private static final int VIEWPORT = 1080;
+
+    @Param({"10", "10000", "10000000"})
+    int itemCount;
+
+    /**
+     * 是否每隔几个item出现不同宽度, 不同宽度时offset换算走树状数组
+     */
+    @Param({"false", "true"})
+    boolean mixedExtents;
+
+    private GalleryLayoutSolver mSolver;
+
+    private Placer mPlacer;
+
+    private int mAnchor;
+
+    private int mDelta;
+
+    private int mMaxDelta;
+
+    /**
+     * 只读取索引中的尺寸, 不做任何布局
+     */
+    static final class Placer implements GalleryLayoutSolver.ItemPlacer {
+        final ItemExtentIndex mExtents;
+        float mChecksum;
+
+        Placer(ItemExtentIndex extents) {
+            mExtents = extents;
+        }
+
+        @Override
+        public int obtainItem(int position) {
+            return mExtents.extentOf(position);
+        }
+
+        @Override
+        public void placeItem(int position, float visibleStart, float scale, float distance) {
+            mChecksum += visibleStart * scale;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        mSolver = BenchmarkSolvers.create(itemCount, mixedExtents);
+        mPlacer = new Placer(mSolver.getExtents());
+        mAnchor = itemCount / 2;
+        mMaxDelta = (int) Math.min(Integer.MAX_VALUE / 2, mSolver.computeMaxOffset(0, VIEWPORT, mAnchor));
+    }
+
+    @Benchmark
+    public void solveFrame(Blackhole blackhole) {
+        //每帧滑动16px, 到达边界后回到起点
+        mDelta += 16;
+        if (mDelta > mMaxDelta) {
+            mDelta = 0;
+        }
+        mSolver.solve(0, VIEWPORT, mAnchor, mDelta, mPlacer);
+        blackhole.consume(mSolver.getLastPosition());
+        blackhole.consume(mPlacer.mChecksum);
+    }
+}
@@ -3,21 +3,24 @@ package com.baiyu.gallerylayoutmanager;
 import android.content.Context;
 import android.graphics.PointF;
 import android.graphics.Rect;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Trace;
 import android.util.AttributeSet;
 import android.util.Log;
-import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.animation.Interpolator;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.OrientationHelper;
-import androidx.recyclerview.widget.PagerSnapHelper;
 import androidx.recyclerview.widget.RecyclerView;
 
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+
 /**
  * 等间距画廊
  */
@@ -26,6 +29,22 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
 
     private static final String TAG = "GalleryLayoutManager";
 
+    /**
+     * 滑动过程中每帧都会执行的日志, 默认关闭避免拼接字符串产生对象
+     * 调试时通过 adb shell setprop log.tag.GalleryLayoutManager VERBOSE 开启
+     */
+    private static final boolean LOG_SCROLL = BuildConfig.DEBUG && Log.isLoggable(TAG, Log.VERBOSE);
+
+    //惯性滑动落点两侧提前绑定的item数量
+    private static final int FLING_TARGET_NEIGHBORS = 1;
+
+    //systrace/Perfetto中的section名称
+    private static final String TRACE_LAYOUT = "GLM OnLayout";
+    private static final String TRACE_FIRST_FILL = "GLM FirstFill";
+    private static final String TRACE_RELAYOUT_WINDOW = "GLM RelayoutWindow";
+    private static final String TRACE_FILL = "GLM Fill";
+    private static final String TRACE_RECYCLE = "GLM Recycle";
+
     RecyclerView mRecyclerView;
 
     private Interpolator mSmoothScrollInterpolator;
@@ -37,15 +56,77 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
     private int scaleCount = 5;
     //缩放系数
     private float scaleRatio = 0.72f;
-    //item原始宽
-    private int mCenterItemWidth;
+    //布局几何计算, 缩放系数查找表和item尺寸索引都在其中
+    private GalleryLayoutSolver mSolver;
+    //item原始尺寸(布局方向上的宽或高)
+    private int mCenterItemSize;
+
+    //滑动边界缓存, 每次布局或配置变化后失效
+    private boolean mScrollBoundsValid = false;
+    private float mMinOffset;
+    private float mMaxOffset;
+
+    //computeScrollVectorForPosition复用的向量
+    private final PointF mScrollVector = new PointF();
+
+    //滑动时提前绑定的item数量
+    private int mPrefetchItemCount = 1;
+    //嵌套在其他RecyclerView中时整行提前绑定的item数量
+    private int mInitialPrefetchItemCount = 3;
+    //惯性滑动预测的落点adapter position, 滑动过程中优先预取
+    private int mFlingTargetPosition = RecyclerView.NO_POSITION;
+
+    //按最多可见的item数量自动扩大GalleryRecycledViewPool的容量
+    private boolean mAutoSizeRecycledViewPool = true;
+    //detach时回收全部item, 使用GalleryRecycledViewPool时总是开启
+    private boolean mRecycleChildrenOnDetach = false;
+
+    //滑动时只更新translation和scale, 已布局的item保持原有的layout位置
+    private boolean mTransformScrollEnabled = false;
+
+    //缩放之外的item变换(透明度、旋转、阴影等), 在布局时一并应用
+    private ItemTransformer mItemTransformer;
+    //更换transformer后需要重新应用到可见item
+    private boolean mTransformerChanged = false;
+
+    //布局时所有fill方法共用的frame, 结果按值写入State.mItemsFrames
+    private final Rect mFrameRect = new Rect();
+
+    //按view type缓存的测量结果, 可用空间和insets不变时跳过measure
+    private final MeasureCache mMeasureCache = new MeasureCache();
+    //本次填充时可用空间已变化, 所有item都需要重新测量
+    private boolean mSpaceChanged = false;
+    //查询ItemDecoration insets复用的Rect
+    private final Rect mDecorInsets = new Rect();
+
+    //布局工作量统计, 设置了监听器才统计, 未开启时只多一次判空
+    private OnLayoutMetricsListener mOnLayoutMetricsListener;
+    private GalleryLayoutMetrics mMetrics;
+    //上一次提交给GapWorker预取的adapter position
+    private int[] mPrefetchedPositions;
+    private int mPrefetchedCount;
+
+    //配置变化后需要重新布局
+    private boolean mConfigChanged = false;
+
+    //adapter有增删改移动, 下一次布局只重新填充可见窗口
+    private boolean mAdapterUpdated = false;
+    //notifyDataSetChanged后需要完整重置
+    private boolean mDataSetChanged = false;
+
+    //scrollToPosition的目标位置, 下一次布局时应用, 同一帧内多次调用只布局一次
+    private int mPendingScrollPosition = RecyclerView.NO_POSITION;
+
+    //onRestoreInstanceState恢复的状态, 下一次布局时应用
+    private SavedState mPendingSavedState;
+    //detach时保存或从GalleryStateStore恢复时复用的状态对象
+    private SavedState mReusableSavedState;
 
     private boolean mShouldReverseLayout = false;
 
+    //循环模式: position按itemCount取模映射到adapter中的item
     private boolean mInfinite = false;
 
-    private RecyclerView.Recycler mRecycler;
-
     final static int LAYOUT_START = -1;
 
     final static int LAYOUT_END = 1;
@@ -54,8 +135,11 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
 
     public static final int VERTICAL = OrientationHelper.VERTICAL;
 
+    //可见区域两端的position, 循环模式下为未取模的虚拟position
     private int mFirstVisiblePosition = 0;
     private int mLastVisiblePos = 0;
+    //第一个已attach的item的虚拟position, 已attach的item按position连续排列
+    private int mFirstAttachedPosition = 0;
     private int mInitialSelectedPosition = 0;
 
     int mCurSelectedPosition = -1;
@@ -66,7 +150,7 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
      */
     private State mState;
 
-    private PagerSnapHelper mSnapHelper = new PagerSnapHelper();
+    private final GallerySnapHelper mSnapHelper = new GallerySnapHelper(this);
 
     /**
      * Current orientation. Either {@link #HORIZONTAL} or {@link #VERTICAL}
@@ -93,6 +177,7 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         }
         mRecyclerView = recyclerView;
         mInitialSelectedPosition = Math.max(0, selectedPosition);
+        invalidateScrollBounds();
         recyclerView.setLayoutManager(this);
         mSnapHelper.attachToRecyclerView(recyclerView);
     }
@@ -106,7 +191,17 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
     @Override
     public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
         view.removeOnScrollListener(scrollCenterListener());
+        view.removeCallbacks(mDispatchPageScrolled);
+        mPageScrolledPending = false;
         super.onDetachedFromWindow(view, recycler);
+        if (getChildCount() > 0 && (mRecycleChildrenOnDetach || recycler.getRecycledViewPool() instanceof GalleryRecycledViewPool)) {
+            //记下当前位置, 重新attach后按保存的状态恢复
+            SavedState pending = obtainReusableSavedState();
+            writeSavedState(pending);
+            mPendingSavedState = pending;
+            removeAndRecycleAllViews(recycler);
+            recycler.clear();
+        }
     }
 
     private RecyclerView.OnScrollListener scrollCenterListener;
@@ -118,12 +213,12 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
 
                 @Override
                 public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                    if (newState != RecyclerView.SCROLL_STATE_SETTLING) {
+                        //惯性滑动结束或被手指打断, 不再预取落点
+                        mFlingTargetPosition = RecyclerView.NO_POSITION;
+                    }
                     if (newState == RecyclerView.SCROLL_STATE_IDLE) {
-                        View snapView = mSnapHelper.findSnapView(GalleryLayoutManager.this);
-                        int currentIndex = 0;
-                        if (snapView != null) {
-                            currentIndex = GalleryLayoutManager.this.getPosition(snapView);
-                        }
+                        int currentIndex = Math.max(0, centerPosition());
                         if (currentPage != currentIndex) {
                             currentPage = currentIndex;
                             if (mOnItemSelectedListener != null) {
@@ -135,8 +230,11 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
 
                 @Override
                 public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
-
-//                    super.onScrolled(recyclerView, dx, dy);
+                    //同一帧内的多次滑动合并为一次回调
+                    if (mOnPageChangeListener != null && !mPageScrolledPending) {
+                        mPageScrolledPending = true;
+                        recyclerView.postOnAnimation(mDispatchPageScrolled);
+                    }
                 }
             };
         }
@@ -175,89 +273,122 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         return lp instanceof LayoutParams;
     }
 
-    float getMaxOffset() {
-        //recyclerview中心点x坐标位置
-        int parentCenter = (getOrientationHelper().getEndAfterPadding() - getOrientationHelper().getStartAfterPadding()) / 2
-                + getOrientationHelper().getStartAfterPadding();
-        //确定recyclerview右边缘的位置
-        int rightEdge = getOrientationHelper().getEndAfterPadding();
-        int rightArea = rightEdge - parentCenter;
-        int scaleDistance = mCenterItemWidth / 2;
-        int minItemDistance = (int) (mCenterItemWidth * Math.pow(scaleRatio, (scaleCount - 1) >> 1)) + itemSpacing;
-        for (int i = 0; i < (scaleCount - 1) / 2; i++) {
-            scaleDistance += itemSpacing + mCenterItemWidth * Math.pow(scaleRatio, i + 1);
-        }
-        int multiple = 0;
-        if (rightArea - scaleDistance > 0) {
-            multiple = (rightArea - scaleDistance) / minItemDistance;
-        }
-        int screenItemCount = (scaleCount - 1) / 2 + multiple;
-        int maxSelectedPosition;
-        if (getItemCount() - 1 - mInitialSelectedPosition >= screenItemCount) {
-            maxSelectedPosition = getItemCount() - 1 - screenItemCount;
-        } else {
-            if (mInitialSelectedPosition % screenItemCount == 0) {
-                maxSelectedPosition = getItemCount() - 1 - screenItemCount;
-            } else {
-                maxSelectedPosition = getItemCount() - 1 - mInitialSelectedPosition % screenItemCount - 1;
-            }
+    /**
+     * 滑动边界只在布局后首次滑动时计算一次, fling过程中直接读取缓存
+     */
+    private void ensureScrollBounds() {
+        if (!mScrollBoundsValid) {
+            mMinOffset = getMinOffset();
+            mMaxOffset = getMaxOffset();
+            mScrollBoundsValid = true;
         }
-        return (maxSelectedPosition - mInitialSelectedPosition) * (itemSpacing + mCenterItemWidth);
+    }
+
+    /**
+     * 尺寸、item数量、itemSpacing/scaleCount/scaleRatio或初始选中位置变化后调用
+     */
+    private void invalidateScrollBounds() {
+        mScrollBoundsValid = false;
+    }
+
+    float getMaxOffset() {
+        OrientationHelper helper = getOrientationHelper();
+        return getSolver().computeMaxOffset(helper.getStartAfterPadding(), helper.getEndAfterPadding(), mInitialSelectedPosition);
     }
 
     float getMinOffset() {
-        //recyclerview中心点x坐标位置
-        int parentCenter = (getOrientationHelper().getEndAfterPadding() - getOrientationHelper().getStartAfterPadding()) / 2
-                + getOrientationHelper().getStartAfterPadding();
-        //确定recyclerview左边缘的位置
-        int leftEdge = getOrientationHelper().getStartAfterPadding();
-        int leftArea = parentCenter - leftEdge;
-        int scaleDistance = mCenterItemWidth / 2;
-        int minItemDistance = (int) (mCenterItemWidth * Math.pow(scaleRatio, (scaleCount - 1) >> 1)) + itemSpacing;
-        for (int i = 0; i < (scaleCount - 1) / 2; i++) {
-            scaleDistance += itemSpacing + mCenterItemWidth * Math.pow(scaleRatio, i + 1);
-        }
-        int multiple = 0;
-        if (leftArea - scaleDistance > 0) {
-            multiple = (leftArea - scaleDistance) / minItemDistance;
-        }
-        int screenItemCount = (scaleCount - 1) / 2 + multiple;
-        int minSelectedPosition;
-        if (mInitialSelectedPosition > screenItemCount) {
-            minSelectedPosition = screenItemCount;
-        } else {
-            if (mInitialSelectedPosition % screenItemCount == 0) {
-                minSelectedPosition = screenItemCount;
-            } else {
-                minSelectedPosition = mInitialSelectedPosition % screenItemCount + 1;
-            }
-        }
-        return (minSelectedPosition - mInitialSelectedPosition) * (itemSpacing + mCenterItemWidth);
+        OrientationHelper helper = getOrientationHelper();
+        return getSolver().computeMinOffset(helper.getStartAfterPadding(), helper.getEndAfterPadding(), mInitialSelectedPosition);
     }
 
+    /**
+     * 中心线移动到position对应item中心需要滑动的距离, 由滑动距离直接计算
+     */
     public int getOffsetToPosition(int position) {
-        View snapView = mSnapHelper.findSnapView(GalleryLayoutManager.this);
-        int currentIndex = 0;
-        if (snapView != null) {
-            currentIndex = GalleryLayoutManager.this.getPosition(snapView);
+        return (int) getSolver().getOffsetToPosition(position, getScrollOffset());
+    }
+
+    /**
+     * 中心线对应的offset(以第一个item的起始边缘为0)
+     */
+    long getScrollOffset() {
+        return getSolver().scrollOffset(mInitialSelectedPosition, getState().mScrollDelta);
+    }
+
+    /**
+     * 中心线移动到虚拟position对应item中心需要滑动的距离, 循环模式下不取模
+     */
+    int getScrollDistanceTo(int position) {
+        return (int) (getState().mItemExtents.centerOffset(position) - getScrollOffset());
+    }
+
+    /**
+     * 中心点距离offset最近的item的虚拟position
+     */
+    int findNearestPosition(long offset) {
+        return getSolver().findNearestPosition(offset);
+    }
+
+    /**
+     * 惯性滑动flingDistance后应停靠的item的虚拟position, 至少向滑动方向移动一个item,
+     * 非循环模式下限制在滑动边界内
+     */
+    int findFlingTargetPosition(int flingDistance) {
+        long minOffset = Long.MIN_VALUE;
+        long maxOffset = Long.MAX_VALUE;
+        if (!mInfinite) {
+            ensureScrollBounds();
+            long base = getState().mItemExtents.centerOffset(mInitialSelectedPosition);
+            minOffset = base + (long) mMinOffset;
+            maxOffset = base + (long) mMaxOffset;
+        }
+        return getSolver().findFlingTargetPosition(getScrollOffset(), flingDistance, minOffset, maxOffset);
+    }
+
+    /**
+     * 中心线附近的itemView, 按滑动距离定位, 不遍历child
+     */
+    View findCenterView() {
+        if (getChildCount() == 0 || getItemCount() == 0) {
+            return null;
+        }
+        return findAttachedView(findNearestPosition(getScrollOffset()));
+    }
+
+    /**
+     * 沿布局方向平滑滑动
+     */
+    void smoothScrollBy(RecyclerView recyclerView, int distance) {
+        if (mOrientation == HORIZONTAL) {
+            recyclerView.smoothScrollBy(distance, 0, mSmoothScrollInterpolator);
+        } else {
+            recyclerView.smoothScrollBy(0, distance, mSmoothScrollInterpolator);
         }
-        int scale = (int) Math.pow(scaleRatio, (scaleCount - 1) >> 1);
-        int minItemDistance = mCenterItemWidth * scale;
-        int pos = position - currentIndex;
-        int itemSpace = pos * itemSpacing;
-        int scrollBy = (int) (mCenterItemWidth + mCenterItemWidth * 0.72f + mCenterItemWidth * 0.28f + mCenterItemWidth * (1 - scale) * (pos - 2) + minItemDistance * pos + itemSpace);
-        return scrollBy;
     }
 
     @Override
     public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
-        if (mRecycler == null) {
-            mRecycler = recycler;
+        Trace.beginSection(TRACE_LAYOUT);
+        long start = mOnLayoutMetricsListener != null ? beginMetrics() : 0;
+        try {
+            layoutChildren(recycler, state);
+        } finally {
+            if (mOnLayoutMetricsListener != null) {
+                dispatchMetrics(start);
+            }
+            Trace.endSection();
         }
+    }
+
+    private void layoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
         if (BuildConfig.DEBUG) {
             Log.d(TAG, "onLayoutChildren() called with: state = [" + state + "]");
         }
+        //尺寸或item数量可能已变化
+        invalidateScrollBounds();
         if (getItemCount() == 0) {
+            mAdapterUpdated = false;
+            mDataSetChanged = false;
             reset();
             detachAndScrapAttachedViews(recycler);
             return;
@@ -265,19 +396,43 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         if (state.isPreLayout()) {
             return;
         }
-        if (state.getItemCount() != 0 && !state.didStructureChange()) {
+        if (state.getItemCount() != 0 && getChildCount() > 0 && !state.didStructureChange() && !mConfigChanged && mPendingSavedState == null
+                && !mAdapterUpdated && !mTransformerChanged && mPendingScrollPosition == RecyclerView.NO_POSITION) {
             if (BuildConfig.DEBUG) {
                 Log.d(TAG, "onLayoutChildren: ignore extra layout step");
             }
             return;
         }
-        if (getChildCount() == 0 || state.didStructureChange()) {
+        boolean incremental = (mAdapterUpdated || mTransformerChanged) && !mDataSetChanged && !mConfigChanged && mPendingSavedState == null
+                && mPendingScrollPosition == RecyclerView.NO_POSITION && getChildCount() > 0;
+        mAdapterUpdated = false;
+        mDataSetChanged = false;
+        mTransformerChanged = false;
+        if (incremental) {
+            //增删改只影响可见窗口, 中心item保持不动
+            mInitialSelectedPosition = Math.min(Math.max(0, mInitialSelectedPosition), getItemCount() - 1);
+            mCurSelectedPosition = mInitialSelectedPosition;
+            relayoutWindow(recycler);
+            return;
+        }
+        if (mPendingSavedState != null) {
+            //从恢复的选中位置开始布局, 不使用旧的选中位置
+            mInitialSelectedPosition = mPendingSavedState.mSelectedPosition;
+            mCurSelectedPosition = -1;
+        }
+        boolean jump = mPendingScrollPosition != RecyclerView.NO_POSITION;
+        if (jump) {
+            //跳转到目标位置, 只填充目标位置附近可见的item
+            mInitialSelectedPosition = mPendingScrollPosition;
+            mCurSelectedPosition = -1;
+            mPendingScrollPosition = RecyclerView.NO_POSITION;
+        }
+        if (getChildCount() == 0 || state.didStructureChange() || mConfigChanged || mPendingSavedState != null || jump) {
             reset();
         }
+        mConfigChanged = false;
         //设置首次选中item的位置
         mInitialSelectedPosition = Math.min(Math.max(0, mInitialSelectedPosition), getItemCount() - 1);
-        //移除所有attach过的Views
-        detachAndScrapAttachedViews(recycler);
         //首次填充画面
         firstFillCover(recycler);
     }
@@ -289,6 +444,8 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         if (mState != null) {
             mState.mItemsFrames.clear();
         }
+        mMeasureCache.clear();
+        getSolver().reset(getItemCount());
         //when data set update keep the last selected position
         if (mCurSelectedPosition != -1) {
             mInitialSelectedPosition = mCurSelectedPosition;
@@ -297,657 +454,708 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         mFirstVisiblePosition = mInitialSelectedPosition;
         mLastVisiblePos = mInitialSelectedPosition;
         mCurSelectedPosition = -1;
+        //从新的初始选中位置开始布局, 滑动距离归零
+        getState().mScrollDelta = 0;
         if (mCurSelectedView != null) {
             mCurSelectedView.setSelected(false);
             mCurSelectedView = null;
         }
+        mFlingTargetPosition = RecyclerView.NO_POSITION;
     }
 
+    /**
+     * Layout the item view witch position specified by {@link GalleryLayoutManager#mInitialSelectedPosition} first and then layout the other
+     *
+     * @param recycler
+     */
     private void firstFillCover(RecyclerView.Recycler recycler) {
-        if (mOrientation == HORIZONTAL) {
-            firstFillWithHorizontal(recycler);
-        } else {
-            firstFillWithVertical(recycler);
+        Trace.beginSection(TRACE_FIRST_FILL);
+        try {
+            //来自英文渣的翻译: scrap-->碎片,这里理解为每个itemView
+            detachAndScrapAttachedViews(recycler);
+            //先测量初始选中的item, 未测量的item按它的尺寸计算
+            View scrap = recycler.getViewForPosition(mInitialSelectedPosition);
+            addView(scrap);
+            mFirstAttachedPosition = mInitialSelectedPosition;
+            measureChildWithMargins(scrap, 0, 0);
+            if (mOnLayoutMetricsListener != null) {
+                mMetrics.mChildrenAdded++;
+                mMetrics.mChildrenMeasured++;
+            }
+            mCenterItemSize = getMainSize(scrap);
+            getState().mItemExtents.setDefaultExtent(mCenterItemSize);
+            recordExtent(mInitialSelectedPosition, mCenterItemSize);
+            if (mPendingSavedState != null) {
+                restoreScrollDelta(mPendingSavedState);
+                mPendingSavedState = null;
+            }
+            //从中心item向两侧填充
+            fillWithOffset(recycler, getState().mScrollDelta);
+            getState().mItemsFrames.ensureCapacity(mLastVisiblePos - mFirstVisiblePosition + 1);
+            sizeRecycledViewPool(recycler);
+        } finally {
+            Trace.endSection();
         }
 
         if (BuildConfig.DEBUG) {
             Log.d(TAG, "firstFillCover finish:first: " + mFirstVisiblePosition + ",last:" + mLastVisiblePos);
         }
-        //首次填充后主动调用一次Scrolled
-        mCurSelectedPosition = mInitialSelectedPosition;
     }
 
     /**
-     * Layout the item view witch position specified by {@link GalleryLayoutManager#mInitialSelectedPosition} first and then layout the other
-     *
-     * @param recycler
+     * 按最多可见的item数量设置可见item的view type在{@link GalleryRecycledViewPool}中的容量,
+     * 只在完整布局后执行. 普通的回收池无法得知应用设置的容量, 不做修改
      */
-    private void firstFillWithHorizontal(RecyclerView.Recycler recycler) {
-        //来自英文渣的翻译: scrap-->碎片,这里理解为每个itemView
-        detachAndScrapAttachedViews(recycler);
-        //RecyclerView内容区域起始位置(即去除padding后的位置)
-        int leftEdge = getOrientationHelper().getStartAfterPadding();
-        //RecyclerView内容区域结束位置(即去除padding后的位置)
-        int rightEdge = getOrientationHelper().getEndAfterPadding();
-        //起始选中位置
-        int startPosition = mInitialSelectedPosition;
-        //选中item的宽和高
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        //垂直方向可用空间高度(view高度减去padding距离)
-        int height = getVerticalSpace();
-        //item顶部距离RecyclerView顶部的距离
-        int topOffset;
-        //layout the init position view
-        View scrap = recycler.getViewForPosition(mInitialSelectedPosition);
-        scrap.setScaleX(1f);
-        scrap.setScaleY(1f);
-        //添加初始化时设置的选中item(即中间的item)
-        addView(scrap, 0);
-        //测量子view
-        measureChildWithMargins(scrap, 0, 0);
-        //获取测量后的宽
-        scrapWidth = getDecoratedMeasuredWidth(scrap);
-        mCenterItemWidth = scrapWidth;
-        //获取测量后的高
-        scrapHeight = getDecoratedMeasuredHeight(scrap);
-        topOffset = (int) (getPaddingTop() + (height - scrapHeight) / 2.0f);
-        int left = (int) (getPaddingLeft() + (getHorizontalSpace() - scrapWidth) / 2.f);
-        scrapRect.set(left, topOffset, left + scrapWidth, topOffset + scrapHeight);
-        //绘制选中的item
-        layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-        //设置或更新item frame缓存内容
-        if (getState().mItemsFrames.get(startPosition) == null) {
-            getState().mItemsFrames.put(startPosition, scrapRect);
-        } else {
-            getState().mItemsFrames.get(startPosition).set(scrapRect);
-        }
-        //对第一个和最后一个可见item的position进行记录
-        mFirstVisiblePosition = mLastVisiblePos = startPosition;
-        //选中item左边缘到RecyclerView左边缘的距离(包含Decoration)
-        int leftStartOffset = getDecoratedLeft(scrap);
-        //选中item右边缘到RecyclerView左边缘的距离(包含Decoration)
-        int rightStartOffset = getDecoratedRight(scrap);
-        //fill left of center
-        //从选中item向左填充绘制
-        fillLeft(recycler, mInitialSelectedPosition - 1, leftStartOffset, leftEdge);
-        //fill right of center
-        //从选中item向右填充绘制
-        fillRight(recycler, mInitialSelectedPosition + 1, rightStartOffset, rightEdge);
+    private void sizeRecycledViewPool(RecyclerView.Recycler recycler) {
+        if (!mAutoSizeRecycledViewPool) {
+            return;
+        }
+        RecyclerView.RecycledViewPool pool = recycler.getRecycledViewPool();
+        if (!(pool instanceof GalleryRecycledViewPool)) {
+            return;
+        }
+        //一侧的item全部移出屏幕后回收池中最多存在的数量, 再加上预取的item
+        int capacity = getMaxVisibleItemCount() + mPrefetchItemCount;
+        for (int i = 0; i < getChildCount(); i++) {
+            ((GalleryRecycledViewPool) pool).ensureRowCapacity(getItemViewType(getChildAt(i)), capacity);
+        }
     }
 
-    @Override
-    public void onItemsRemoved(@NotNull RecyclerView recyclerView, int positionStart, int itemCount) {
-        super.onItemsRemoved(recyclerView, positionStart, itemCount);
+    /**
+     * 按保存的比例恢复中心item的偏移, 尺寸变化(如旋转屏幕)后按新的item间距换算
+     */
+    private void restoreScrollDelta(SavedState savedState) {
+        if (savedState.mConfigFingerprint != getConfigFingerprint() || savedState.mOffsetFraction <= 0) {
+            return;
+        }
+        int delta = Math.round(savedState.mOffsetFraction * getCenterDistance(mInitialSelectedPosition, mInitialSelectedPosition + 1));
+        if (!mInfinite) {
+            ensureScrollBounds();
+            delta = (int) Math.max(mMinOffset, Math.min(mMaxOffset, delta));
+        }
+        getState().mScrollDelta = delta;
     }
 
     /**
-     * Layout the item view witch position special by {@link GalleryLayoutManager#mInitialSelectedPosition} first and then layout the other
-     */
-    private void firstFillWithVertical(RecyclerView.Recycler recycler) {
-        detachAndScrapAttachedViews(recycler);
-        int topEdge = getOrientationHelper().getStartAfterPadding();
-        int bottomEdge = getOrientationHelper().getEndAfterPadding();
-        int startPosition = mInitialSelectedPosition;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        int width = getHorizontalSpace();
-        int leftOffset;
-        //layout the init position view
-        View scrap = recycler.getViewForPosition(mInitialSelectedPosition);
-        addView(scrap, 0);
-        measureChildWithMargins(scrap, 0, 0);
-        scrapWidth = getDecoratedMeasuredWidth(scrap);
-        scrapHeight = getDecoratedMeasuredHeight(scrap);
-        leftOffset = (int) (getPaddingLeft() + (width - scrapWidth) / 2.0f);
-        int top = (int) (getPaddingTop() + (getVerticalSpace() - scrapHeight) / 2.f);
-        scrapRect.set(leftOffset, top, leftOffset + scrapWidth, top + scrapHeight);
-        layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-        if (getState().mItemsFrames.get(startPosition) == null) {
-            getState().mItemsFrames.put(startPosition, scrapRect);
-        } else {
-            getState().mItemsFrames.get(startPosition).set(scrapRect);
-        }
-        mFirstVisiblePosition = mLastVisiblePos = startPosition;
-        int topStartOffset = getDecoratedTop(scrap);
-        int bottomStartOffset = getDecoratedBottom(scrap);
-        //fill left of center
-        fillTop(recycler, mInitialSelectedPosition - 1, topStartOffset, topEdge);
-        //fill right of center
-        fillBottom(recycler, mInitialSelectedPosition + 1, bottomStartOffset, bottomEdge);
+     * 影响布局结果的配置, 与保存时不一致则只恢复选中位置
+     */
+    private int getConfigFingerprint() {
+        int result = itemSpacing;
+        result = 31 * result + scaleCount;
+        result = 31 * result + Float.floatToIntBits(scaleRatio);
+        result = 31 * result + mOrientation;
+        result = 31 * result + (mInfinite ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState();
+        writeSavedState(savedState);
+        return savedState;
     }
 
     /**
-     * Fill left of the center view
-     *
-     * @param recycler
-     * @param startPosition start position to fill left
-     * @param startOffset   layout start offset
-     * @param leftEdge
-     */
-    private void fillLeft(RecyclerView.Recycler recycler, int startPosition, int startOffset, int leftEdge) {
-        View scrap;
-        int topOffset;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        int height = getVerticalSpace();
-        for (int i = startPosition; i >= 0 && startOffset > leftEdge; i--) {
-            scrap = recycler.getViewForPosition(i);
-            addView(scrap, 0);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-            int gamma = Math.min((startPosition - i + 1), (scaleCount - 1) / 2);
-            float spacing = (float) Math.pow(scaleRatio, gamma);
-            scrap.setScaleX(spacing);
-            scrap.setScaleY(spacing);
-            topOffset = (int) (getPaddingTop() + (height - scrapHeight * spacing) / 2.0f);
-            int topPosition = (int) (topOffset - scrapHeight * (1 - spacing) / 2.0f);
-            int rightPosition = (int) (startOffset - (itemSpacing - scrapWidth * (1 - spacing) / 2));
-            scrapRect.set(rightPosition - scrapWidth, topPosition, rightPosition, topPosition + scrapHeight);
-            startOffset = (int) (startOffset - scrapWidth * spacing - itemSpacing);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-            mFirstVisiblePosition = i;
-            if (getState().mItemsFrames.get(i) == null) {
-                getState().mItemsFrames.put(i, scrapRect);
-            } else {
-                getState().mItemsFrames.get(i).set(scrapRect);
-            }
+     * 把当前的选中位置和偏移比例写入out, 还有未应用的状态时写入未应用的状态
+     */
+    private void writeSavedState(SavedState out) {
+        if (mPendingSavedState != null) {
+            out.set(mPendingSavedState);
+            return;
+        }
+        out.mConfigFingerprint = getConfigFingerprint();
+        out.mOffsetFraction = 0;
+        if (mPendingScrollPosition != RecyclerView.NO_POSITION) {
+            out.mSelectedPosition = mPendingScrollPosition;
+            return;
+        }
+        if (getChildCount() == 0 || getItemCount() == 0) {
+            out.mSelectedPosition = mInitialSelectedPosition;
+            return;
+        }
+        //中心线之前最近的item及中心线相对它的偏移比例
+        ItemExtentIndex extents = getState().mItemExtents;
+        long scrollOffset = extents.centerOffset(mInitialSelectedPosition) + getState().mScrollDelta;
+        int position = extents.findPositionAtOrBefore(scrollOffset);
+        long offset = scrollOffset - extents.centerOffset(position);
+        out.mSelectedPosition = toAdapterPosition(position);
+        if (offset > 0) {
+            out.mOffsetFraction = Math.min(1f, offset / (float) getCenterDistance(position, position + 1));
         }
     }
 
-    /**
-     * Fill right of the center view
-     *
-     * @param recycler
-     * @param startPosition start position to fill right
-     * @param startOffset   layout start offset
-     * @param rightEdge
-     */
-    private void fillRight(RecyclerView.Recycler recycler, int startPosition, int startOffset, int rightEdge) {
-        View scrap;
-        int topOffset;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        int height = getVerticalSpace();
-        for (int i = startPosition; i < getItemCount() && startOffset < rightEdge; i++) {
-            scrap = recycler.getViewForPosition(i);
-            addView(scrap);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-
-            int gamma = Math.min((i - startPosition + 1), (scaleCount - 1) / 2);
-            float spacing = (float) Math.pow(scaleRatio, gamma);
-            scrap.setScaleX(spacing);
-            scrap.setScaleY(spacing);
-            topOffset = (int) (getPaddingTop() + (height - scrapHeight * spacing) / 2.0f);
-            int topPosition = (int) (topOffset - scrapHeight * (1 - spacing) / 2.0f);
-            int leftPosition = (int) (startOffset + (itemSpacing - scrapWidth * (1 - spacing) / 2));
-            scrapRect.set(leftPosition, topPosition, leftPosition + scrapWidth, topPosition + scrapHeight);
-            startOffset = (int) (startOffset + scrapWidth * spacing + itemSpacing);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-            mLastVisiblePos = i;
-            if (getState().mItemsFrames.get(i) == null) {
-                getState().mItemsFrames.put(i, scrapRect);
-            } else {
-                getState().mItemsFrames.get(i).set(scrapRect);
-            }
+    private SavedState obtainReusableSavedState() {
+        if (mReusableSavedState == null) {
+            mReusableSavedState = new SavedState();
         }
+        return mReusableSavedState;
     }
 
     /**
-     * Fill top of the center view
-     *
-     * @param recycler
-     * @param startPosition start position to fill top
-     * @param startOffset   layout start offset
-     * @param topEdge       top edge of the RecycleView
-     */
-    private void fillTop(RecyclerView.Recycler recycler, int startPosition, int startOffset, int topEdge) {
-        View scrap;
-        int leftOffset;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        int width = getHorizontalSpace();
-        for (int i = startPosition; i >= 0 && startOffset > topEdge; i--) {
-            scrap = recycler.getViewForPosition(i);
-            addView(scrap, 0);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-            leftOffset = (int) (getPaddingLeft() + (width - scrapWidth) / 2.0f);
-            scrapRect.set(leftOffset, startOffset - scrapHeight, leftOffset + scrapWidth, startOffset);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-            startOffset = scrapRect.top;
-            mFirstVisiblePosition = i;
-            if (getState().mItemsFrames.get(i) == null) {
-                getState().mItemsFrames.put(i, scrapRect);
-            } else {
-                getState().mItemsFrames.get(i).set(scrapRect);
-            }
-        }
+     * 以rowId为key把当前滑动状态保存到store, 一般在外层adapter的onViewRecycled中调用
+     */
+    public void saveState(@NonNull GalleryStateStore store, long rowId) {
+        writeSavedState(store.obtain(rowId));
     }
 
     /**
-     * Fill bottom of the center view
+     * 从store恢复rowId保存的滑动状态, 下一次布局时生效; 没有保存过时跳转到defaultPosition.
+     * 一般在外层adapter的onBindViewHolder中调用
      *
-     * @param recycler
-     * @param startPosition start position to fill bottom
-     * @param startOffset   layout start offset
-     * @param bottomEdge    bottom edge of the RecycleView
-     */
-    private void fillBottom(RecyclerView.Recycler recycler, int startPosition, int startOffset, int bottomEdge) {
-        View scrap;
-        int leftOffset;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        int width = getHorizontalSpace();
-        for (int i = startPosition; i < getItemCount() && startOffset < bottomEdge; i++) {
-            scrap = recycler.getViewForPosition(i);
-            addView(scrap);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-            leftOffset = (int) (getPaddingLeft() + (width - scrapWidth) / 2.0f);
-            scrapRect.set(leftOffset, startOffset, leftOffset + scrapWidth, startOffset + scrapHeight);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-            startOffset = scrapRect.bottom;
-            mLastVisiblePos = i;
-            if (getState().mItemsFrames.get(i) == null) {
-                getState().mItemsFrames.put(i, scrapRect);
-            } else {
-                getState().mItemsFrames.get(i).set(scrapRect);
-            }
+     * @return 是否找到了保存的状态
+     */
+    public boolean restoreState(@NonNull GalleryStateStore store, long rowId, int defaultPosition) {
+        SavedState saved = store.get(rowId);
+        if (saved == null) {
+            scrollToPosition(Math.max(0, defaultPosition));
+            return false;
         }
+        //store中的对象之后可能被其他行覆盖, 复制一份再应用
+        SavedState pending = obtainReusableSavedState();
+        pending.set(saved);
+        mPendingSavedState = pending;
+        mPendingScrollPosition = RecyclerView.NO_POSITION;
+        invalidateScrollBounds();
+        requestLayout();
+        return true;
     }
 
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        if (state instanceof SavedState) {
+            mPendingSavedState = (SavedState) state;
+            requestLayout();
+        }
+    }
 
-    private void fillCover(RecyclerView.Recycler recycler, int scrollDelta) {
-        if (getItemCount() == 0) {
-            return;
+    /**
+     * adapter变化后重新填充可见窗口: 已attach的item放入scrap, 未变化的item直接取回不会重新绑定,
+     * 滑动距离、item尺寸和frame缓存保持不变
+     */
+    private void relayoutWindow(RecyclerView.Recycler recycler) {
+        Trace.beginSection(TRACE_RELAYOUT_WINDOW);
+        try {
+            detachAndScrapAttachedViews(recycler);
+            fillCover(recycler);
+        } finally {
+            Trace.endSection();
         }
-        if (mOrientation == HORIZONTAL) {
-            fillHorizontal(recycler, getState().mScrollDelta);
-        } else {
-            fillWithVertical(recycler, scrollDelta);
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "relayoutWindow finish:first: " + mFirstVisiblePosition + ",last:" + mLastVisiblePos);
         }
     }
 
     /**
-     * @param recycler
-     * @param dy
+     * 以当前中心item作为初始选中位置, 滑动距离改为中心线相对它的偏移,
+     * 之后adapter的增删移动只需平移这个锚点. 同一批变化只在第一次回调时计算
      */
-    private void fillWithVertical(RecyclerView.Recycler recycler, int dy) {
-        if (BuildConfig.DEBUG) {
-            Log.d(TAG, "fillWithVertical: dy:" + dy);
+    private void anchorToCenterItem() {
+        if (mAdapterUpdated) {
+            return;
         }
-        int topEdge = getOrientationHelper().getStartAfterPadding();
-        int bottomEdge = getOrientationHelper().getEndAfterPadding();
+        mAdapterUpdated = true;
+        ItemExtentIndex extents = getState().mItemExtents;
+        int delta = getState().mScrollDelta;
+        long scrollOffset = getScrollOffset();
+        //与布局时选择中心item的规则一致, 保证布局结果不变
+        int center = getSolver().findAnchorPosition(scrollOffset, delta);
+        getState().mScrollDelta = (int) (scrollOffset - extents.centerOffset(center));
+        //此时getItemCount()已是变化后的数量, 按变化前的数量取模
+        int itemCount = extents.getItemCount();
+        mInitialSelectedPosition = mInfinite && itemCount > 0 ? ItemExtentIndex.floorMod(center, itemCount) : center;
+        mCurSelectedPosition = mInitialSelectedPosition;
+        invalidateScrollBounds();
+    }
 
-        //1.remove and recycle the view that disappear in screen
-        View child;
-        if (getChildCount() > 0) {
-            if (dy >= 0) {
-                //remove and recycle the top off screen view
-                int fixIndex = 0;
-                for (int i = 0; i < getChildCount(); i++) {
-                    child = getChildAt(i + fixIndex);
-                    if (getDecoratedBottom(child) - dy < topEdge) {
-                        if (BuildConfig.DEBUG) {
-                            Log.v(TAG, "fillWithVertical: removeAndRecycleView:" + getPosition(child) + ",bottom:" + getDecoratedBottom(child));
-                        }
-                        removeAndRecycleView(child, recycler);
-                        mFirstVisiblePosition++;
-                        fixIndex--;
-                    } else {
-                        if (BuildConfig.DEBUG) {
-                            Log.d(TAG, "fillWithVertical: break:" + getPosition(child) + ",bottom:" + getDecoratedBottom(child));
-                        }
-                        break;
-                    }
-                }
-            } else { //dy<0
-                //remove and recycle the bottom off screen view
-                for (int i = getChildCount() - 1; i >= 0; i--) {
-                    child = getChildAt(i);
-                    if (getDecoratedTop(child) - dy > bottomEdge) {
-                        if (BuildConfig.DEBUG) {
-                            Log.v(TAG, "fillWithVertical: removeAndRecycleView:" + getPosition(child));
-                        }
-                        removeAndRecycleView(child, recycler);
-                        mLastVisiblePos--;
-                    } else {
-                        break;
-                    }
-                }
-            }
+    @Override
+    public void onItemsAdded(@NotNull RecyclerView recyclerView, int positionStart, int itemCount) {
+        super.onItemsAdded(recyclerView, positionStart, itemCount);
+        if (getChildCount() == 0 || mDataSetChanged) {
+            return;
+        }
+        anchorToCenterItem();
+        getState().mItemExtents.insert(positionStart, itemCount);
+        getState().mItemsFrames.offsetPositions(positionStart, Integer.MAX_VALUE, itemCount);
+        if (positionStart <= mInitialSelectedPosition) {
+            mInitialSelectedPosition += itemCount;
+        }
+        mCurSelectedPosition = mInitialSelectedPosition;
+    }
 
+    @Override
+    public void onItemsRemoved(@NotNull RecyclerView recyclerView, int positionStart, int itemCount) {
+        super.onItemsRemoved(recyclerView, positionStart, itemCount);
+        if (getChildCount() == 0 || mDataSetChanged) {
+            return;
+        }
+        anchorToCenterItem();
+        getState().mItemExtents.remove(positionStart, itemCount);
+        getState().mItemsFrames.removeRange(positionStart, itemCount);
+        getState().mItemsFrames.offsetPositions(positionStart + itemCount, Integer.MAX_VALUE, -itemCount);
+        if (mInitialSelectedPosition >= positionStart + itemCount) {
+            mInitialSelectedPosition -= itemCount;
+        } else if (mInitialSelectedPosition >= positionStart) {
+            //中心item被删除, 由后面补上的item居中
+            mInitialSelectedPosition = positionStart;
+            getState().mScrollDelta = 0;
         }
+        mCurSelectedPosition = mInitialSelectedPosition;
+    }
 
-        int startPosition = mFirstVisiblePosition;
-        int startOffset = -1;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect;
-        int width = getHorizontalSpace();
-        int leftOffset;
-        View scrap;
-        //2.Add or reattach item view to fill screen
-        if (dy >= 0) {
-            if (getChildCount() != 0) {
-                View lastView = getChildAt(getChildCount() - 1);
-                startPosition = getPosition(lastView) + 1;
-                startOffset = getDecoratedBottom(lastView);
-            }
-            for (int i = startPosition; i < getItemCount() && startOffset < bottomEdge + dy; i++) {
-                scrapRect = getState().mItemsFrames.get(i);
-                scrap = recycler.getViewForPosition(i);
-                addView(scrap);
-                if (scrapRect == null) {
-                    scrapRect = new Rect();
-                    getState().mItemsFrames.put(i, scrapRect);
-                }
-                measureChildWithMargins(scrap, 0, 0);
-                scrapWidth = getDecoratedMeasuredWidth(scrap);
-                scrapHeight = getDecoratedMeasuredHeight(scrap);
-                leftOffset = (int) (getPaddingLeft() + (width - scrapWidth) / 2.0f);
-                if (startOffset == -1 && startPosition == 0) {
-                    //layout the first position item in center
-                    int top = (int) (getPaddingTop() + (getVerticalSpace() - scrapHeight) / 2.f);
-                    scrapRect.set(leftOffset, top, leftOffset + scrapWidth, top + scrapHeight);
-                } else {
-                    scrapRect.set(leftOffset, startOffset, leftOffset + scrapWidth, startOffset + scrapHeight);
-                }
-                layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-                startOffset = scrapRect.bottom;
-                mLastVisiblePos = i;
-                if (BuildConfig.DEBUG) {
-                    Log.d(TAG, "fillWithVertical: add view:" + i + ",startOffset:" + startOffset + ",mLastVisiblePos:" + mLastVisiblePos + ",bottomEdge" + bottomEdge);
-                }
-            }
+    @Override
+    public void onItemsMoved(@NotNull RecyclerView recyclerView, int from, int to, int itemCount) {
+        super.onItemsMoved(recyclerView, from, to, itemCount);
+        if (getChildCount() == 0 || mDataSetChanged) {
+            return;
+        }
+        if (itemCount != 1) {
+            //RecyclerView只会逐个移动, 其他情况按整体变化处理
+            mDataSetChanged = true;
+            return;
+        }
+        anchorToCenterItem();
+        getState().mItemExtents.move(from, to);
+        ItemFrameCache frames = getState().mItemsFrames;
+        frames.remove(from);
+        if (from < to) {
+            frames.offsetPositions(from + 1, to + 1, -1);
         } else {
-            //dy<0
-            if (getChildCount() > 0) {
-                View firstView = getChildAt(0);
-                startPosition = getPosition(firstView) - 1; //前一个View的position
-                startOffset = getDecoratedTop(firstView);
-            }
-            for (int i = startPosition; i >= 0 && startOffset > topEdge + dy; i--) {
-                scrapRect = getState().mItemsFrames.get(i);
-                scrap = recycler.getViewForPosition(i);
-                addView(scrap, 0);
-                if (scrapRect == null) {
-                    scrapRect = new Rect();
-                    getState().mItemsFrames.put(i, scrapRect);
-                }
-                measureChildWithMargins(scrap, 0, 0);
-                scrapWidth = getDecoratedMeasuredWidth(scrap);
-                scrapHeight = getDecoratedMeasuredHeight(scrap);
-                leftOffset = (int) (getPaddingLeft() + (width - scrapWidth) / 2.0f);
-                scrapRect.set(leftOffset, startOffset - scrapHeight, leftOffset + scrapWidth, startOffset);
-                layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-                startOffset = scrapRect.top;
-                mFirstVisiblePosition = i;
-            }
+            frames.offsetPositions(to, from, 1);
+        }
+        if (mInitialSelectedPosition == from) {
+            mInitialSelectedPosition = to;
+        } else if (from < mInitialSelectedPosition && mInitialSelectedPosition <= to) {
+            mInitialSelectedPosition--;
+        } else if (to <= mInitialSelectedPosition && mInitialSelectedPosition < from) {
+            mInitialSelectedPosition++;
         }
+        mCurSelectedPosition = mInitialSelectedPosition;
     }
 
-    private void fillHorizontal(RecyclerView.Recycler recycler, int dx) {
-        detachAndScrapAttachedViews(recycler);
-        //recyclerview中心点x坐标位置
-        int parentCenter = (getOrientationHelper().getEndAfterPadding() - getOrientationHelper().getStartAfterPadding()) / 2
-                + getOrientationHelper().getStartAfterPadding();
-        //确定recyclerview左边缘的位置
-        int leftEdge = getOrientationHelper().getStartAfterPadding();
-        //确定recyclerview右边缘的位置
-        int rightEdge = getOrientationHelper().getEndAfterPadding();
-        //中心item到两边最近的item的偏移量
-        int offetOneFromCenter = mCenterItemWidth + itemSpacing;
-        //根据mCurSelectedPosition先绘制中间item(中间item此时可能也处于偏移状态)
-        int offsetDx = Math.abs(dx) % offetOneFromCenter;
-        int topOffset;
-        int scrapWidth, scrapHeight;
-        int height = getVerticalSpace();
-        Rect scrapRect;
-        float spacing;
-        int beishu = Math.abs(dx) / offetOneFromCenter;
-        if (dx > 0) {
-            if ((mInitialSelectedPosition + beishu) < getItemCount()) {
-                mCurSelectedPosition = mInitialSelectedPosition + beishu;
-            } else {
-                mCurSelectedPosition = getItemCount() - 1;
-            }
-            //从右向左滑
-            spacing = 1f - (1f - scaleRatio) * offsetDx / (float) offetOneFromCenter;
-            scrapRect = getState().mItemsFrames.get(mCurSelectedPosition);
-            View scrap = recycler.getViewForPosition(mCurSelectedPosition);
-            addView(scrap);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-            scrap.setScaleX(spacing);
-            scrap.setScaleY(spacing);
-            if (scrapRect == null) {
-                scrapRect = new Rect();
-            }
-            topOffset = (int) (getPaddingTop() + (height - scrapHeight * spacing) / 2.0f);
-            int topPosition = (int) (topOffset - scrapHeight * (1 - spacing) / 2.0f);
-            int rightPosition = (int) (parentCenter + mCenterItemWidth / 2 - offsetDx +
-                    (scrapWidth * (1 - spacing) / 2));
-            scrapRect.set(rightPosition - scrapWidth, topPosition, rightPosition, topPosition + scrapHeight);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-            //画左面
-            fillLeftTest(recycler, mCurSelectedPosition - 1,
-                    (int) (rightPosition - scrapWidth + scrapWidth * (1f - spacing) / 2),
-                    leftEdge, dx);
-            //画右面
-            fillRightTest(recycler, mCurSelectedPosition + 1,
-                    (int) (rightPosition - scrapWidth * (1f - spacing) / 2),
-                    rightEdge, dx);
-        } else {
-            //从左向右滑
-            mCurSelectedPosition = Math.max((mInitialSelectedPosition - beishu), 0);
-            spacing = 1f - (1f - scaleRatio) * offsetDx / (float) offetOneFromCenter;
-            scrapRect = getState().mItemsFrames.get(mCurSelectedPosition);
-            View scrap = recycler.getViewForPosition(mCurSelectedPosition);
-            addView(scrap);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-            scrap.setScaleX(spacing);
-            scrap.setScaleY(spacing);
-            if (scrapRect == null) {
-                scrapRect = new Rect();
-            }
-            topOffset = (int) (getPaddingTop() + (height - scrapHeight * spacing) / 2.0f);
-            int topPosition = (int) (topOffset - scrapHeight * (1 - spacing) / 2.0f);
-            int leftPosition = (int) (parentCenter - mCenterItemWidth / 2 + offsetDx -
-                    (scrapWidth * (1 - spacing) / 2));
-            scrapRect.set(leftPosition, topPosition, leftPosition + scrapWidth, topPosition + scrapHeight);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-
-            //画左面
-            fillLeftTest1(recycler, mCurSelectedPosition - 1,
-                    (int) (leftPosition + scrapWidth * (1f - spacing) / 2),
-                    leftEdge, dx);
-            //画右面
-            fillRightTest1(recycler, mCurSelectedPosition + 1,
-                    (int) (leftPosition + scrapWidth - scrapWidth * (1f - spacing) / 2),
-                    rightEdge, dx);
-        }
-    }
-
-    private void fillLeftTest1(RecyclerView.Recycler recycler, int startPosition, int startOffset, int leftEdge, int dx) {
-        View scrap;
-        int topOffset;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        int height = getVerticalSpace();
-        int offetOneFromCenter = mCenterItemWidth + itemSpacing;
-        for (int i = startPosition; i >= 0 && startOffset > leftEdge + itemSpacing; i--) {
-            int gamma = startPosition - i + 1;
-            float tempScale = (float) Math.max(Math.pow(scaleRatio, (scaleCount - 1) / 2f),
-                    Math.pow(scaleRatio, (float) gamma - 1));
-            float preSpacing = (float) Math.max(Math.pow(scaleRatio, (scaleCount - 1) / 2f),
-                    Math.pow(scaleRatio, gamma));
-            scrap = recycler.getViewForPosition(i);
-            addView(scrap, 0);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-            int offsetDx = Math.abs(dx) % offetOneFromCenter;
-            float spacing = preSpacing + (tempScale - preSpacing) * offsetDx / (float) offetOneFromCenter;
-            scrap.setScaleX(spacing);
-            scrap.setScaleY(spacing);
-            topOffset = (int) (getPaddingTop() + (height - scrapHeight * spacing) / 2.0f);
-            int topPosition = (int) (topOffset - scrapHeight * (1 - spacing) / 2.0f);
-            int rightPosition = (int) (startOffset - (itemSpacing - scrapWidth * (1 - spacing) / 2));
-            scrapRect.set(rightPosition - scrapWidth, topPosition, rightPosition, topPosition + scrapHeight);
-            startOffset = (int) (startOffset - scrapWidth * spacing - itemSpacing);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-            mFirstVisiblePosition = i;
-            if (getState().mItemsFrames.get(i) == null) {
-                getState().mItemsFrames.put(i, scrapRect);
-            } else {
-                getState().mItemsFrames.get(i).set(scrapRect);
-            }
+    @Override
+    public void onItemsUpdated(@NotNull RecyclerView recyclerView, int positionStart, int itemCount) {
+        super.onItemsUpdated(recyclerView, positionStart, itemCount);
+        if (getChildCount() == 0 || mDataSetChanged) {
+            return;
         }
+        //内容变化的item在重新填充时重新绑定和测量
+        anchorToCenterItem();
     }
 
-    private void fillRightTest1(RecyclerView.Recycler recycler, int startPosition, int startOffset, int rightEdge, int dx) {
-        View scrap;
-        int topOffset;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        int height = getVerticalSpace();
-        int offetOneFromCenter = mCenterItemWidth + itemSpacing;
-        for (int i = startPosition; i < getItemCount() && startOffset < rightEdge - itemSpacing; i++) {
-            int gamma = i - startPosition + 1;
-            float tempScale = (float) Math.max(Math.pow(scaleRatio, (scaleCount - 1) / 2f),
-                    Math.pow(scaleRatio, (float) gamma));
-            float nextSpacing = (float) Math.max(Math.pow(scaleRatio, (scaleCount - 1) / 2f),
-                    Math.pow(scaleRatio, gamma + 1));
-            scrap = recycler.getViewForPosition(i);
-            addView(scrap);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-            int offsetDx = Math.abs(dx) % offetOneFromCenter;
-            float spacing = tempScale - (tempScale - nextSpacing) * offsetDx / (float) offetOneFromCenter;
-            scrap.setScaleX(spacing);
-            scrap.setScaleY(spacing);
-            topOffset = (int) (getPaddingTop() + (height - scrapHeight * spacing) / 2.0f);
-            int topPosition = (int) (topOffset - scrapHeight * (1 - spacing) / 2.0f);
-            int leftPosition = (int) (startOffset + (itemSpacing - scrapWidth * (1 - spacing) / 2));
-            scrapRect.set(leftPosition, topPosition, leftPosition + scrapWidth, topPosition + scrapHeight);
-            startOffset = (int) (startOffset + scrapWidth * spacing + itemSpacing);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-            mLastVisiblePos = i;
-            if (getState().mItemsFrames.get(i) == null) {
-                getState().mItemsFrames.put(i, scrapRect);
-            } else {
-                getState().mItemsFrames.get(i).set(scrapRect);
-            }
+    @Override
+    public void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter) {
+        super.onAdapterChanged(oldAdapter, newAdapter);
+        //view type的含义随adapter变化
+        mMeasureCache.clear();
+    }
+
+    @Override
+    public void onItemsChanged(@NotNull RecyclerView recyclerView) {
+        super.onItemsChanged(recyclerView);
+        mDataSetChanged = true;
+    }
+
+    private void fillCover(RecyclerView.Recycler recycler) {
+        if (getItemCount() == 0) {
+            return;
         }
+        fillWithOffset(recycler, getState().mScrollDelta);
+        //frame缓存只需容纳可见区域及两侧余量
+        getState().mItemsFrames.ensureCapacity(mLastVisiblePos - mFirstVisiblePosition + 1);
     }
 
     /**
-     * 动态绘制左侧view
+     * 根据滑动距离布局, 水平和垂直方向共用: 位置和缩放由{@link GalleryLayoutSolver}求解,
+     * 已attach的item原地偏移和缩放, 只在两端回收或添加item
+     *
+     * @param delta 相对初始选中item的滑动距离
      */
-    private void fillLeftTest(RecyclerView.Recycler recycler, int startPosition, int startOffset, int leftEdge, int dx) {
-        View scrap;
-        int topOffset;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        int height = getVerticalSpace();
-        int offetOneFromCenter = mCenterItemWidth + itemSpacing;
-        for (int i = startPosition; i >= 0 && startOffset > leftEdge + itemSpacing; i--) {
-            int gamma = Math.min((startPosition - i + 1), (scaleCount - 1) / 2);
-            float tempScale = (float) Math.max(Math.pow(scaleRatio, (scaleCount - 1) / 2f),
-                    Math.pow(scaleRatio, (float) gamma));
-            float preSpacing = (float) Math.max(Math.pow(scaleRatio, (scaleCount - 1) / 2f),
-                    Math.pow(scaleRatio, gamma + 1));
-            scrap = recycler.getViewForPosition(i);
-            addView(scrap, 0);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-            int offsetDx = Math.abs(dx) % offetOneFromCenter;
-            float spacing = tempScale - (tempScale - preSpacing) * offsetDx / (float) offetOneFromCenter;
-            scrap.setScaleX(spacing);
-            scrap.setScaleY(spacing);
-            topOffset = (int) (getPaddingTop() + (height - scrapHeight * spacing) / 2.0f);
-            int topPosition = (int) (topOffset - scrapHeight * (1 - spacing) / 2.0f);
-            int rightPosition = (int) (startOffset - (itemSpacing - scrapWidth * (1 - spacing) / 2));
-            scrapRect.set(rightPosition - scrapWidth, topPosition, rightPosition, topPosition + scrapHeight);
-            startOffset = (int) (startOffset - scrapWidth * spacing - itemSpacing);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-            mFirstVisiblePosition = i;
-            if (getState().mItemsFrames.get(i) == null) {
-                getState().mItemsFrames.put(i, scrapRect);
-            } else {
-                getState().mItemsFrames.get(i).set(scrapRect);
+    private void fillWithOffset(RecyclerView.Recycler recycler, int delta) {
+        OrientationHelper helper = getOrientationHelper();
+        GalleryLayoutSolver solver = getSolver();
+        mSpaceChanged = mMeasureCache.updateSpace(getHorizontalSpace(), getVerticalSpace());
+        boolean scrapped = false;
+        if (getChildCount() > 0) {
+            int center = solver.findAnchorPosition(solver.scrollOffset(mInitialSelectedPosition, delta), delta);
+            if (center < mFirstAttachedPosition - 1 || center > mFirstAttachedPosition + getChildCount()) {
+                //一次滑动越过了已attach的范围, 新的item与已attach的item不再相连,
+                //全部放入scrap后从中心重新填充, 保证已attach的item按position连续排列
+                detachAndScrapAttachedViews(recycler);
+                scrapped = true;
             }
         }
+        mLayoutPlacer.mRecycler = recycler;
+        Trace.beginSection(TRACE_FILL);
+        try {
+            solver.solve(helper.getStartAfterPadding(), helper.getEndAfterPadding(), mInitialSelectedPosition, delta, mLayoutPlacer);
+        } finally {
+            mLayoutPlacer.release();
+            Trace.endSection();
+        }
+        mCurSelectedPosition = toAdapterPosition(solver.getCenterPosition());
+        mFirstVisiblePosition = solver.getFirstPosition();
+        mLastVisiblePos = solver.getLastPosition();
+        if (LOG_SCROLL) {
+            Log.v(TAG, "fillWithOffset: delta:" + delta + ",selected:" + mCurSelectedPosition
+                    + ",first:" + mFirstVisiblePosition + ",last:" + mLastVisiblePos);
+        }
+        //回收移出屏幕的item
+        recycleOutOfRange(recycler);
+        if (scrapped) {
+            //滑动过程中RecyclerView不会处理剩余的scrap, 未被取回的item在这里回收
+            recycleScrap(recycler);
+        }
     }
 
     /**
-     * 动态绘制右侧view
+     * 把求解结果落实到itemView: 按position获取并测量item, 再按求解的位置和缩放布局
      */
-    private void fillRightTest(RecyclerView.Recycler recycler, int startPosition, int startOffset, int rightEdge, int dx) {
-        View scrap;
-        int topOffset;
-        int scrapWidth, scrapHeight;
-        Rect scrapRect = new Rect();
-        int height = getVerticalSpace();
-        int offetOneFromCenter = mCenterItemWidth + itemSpacing;
-        for (int i = startPosition; i < getItemCount() && startOffset < rightEdge - itemSpacing; i++) {
-            int gamma = i - startPosition + 1;
-            float tempScale = (float) Math.max(Math.pow(scaleRatio, (scaleCount - 1) / 2f),
-                    Math.pow(scaleRatio, (float) gamma));
-            float preSpacing = (float) Math.max(Math.pow(scaleRatio, (scaleCount - 1) / 2f),
-                    Math.pow(scaleRatio, gamma - 1));
-            scrap = recycler.getViewForPosition(i);
-            addView(scrap);
-            measureChildWithMargins(scrap, 0, 0);
-            scrapWidth = getDecoratedMeasuredWidth(scrap);
-            scrapHeight = getDecoratedMeasuredHeight(scrap);
-            int offsetDx = Math.abs(dx) % offetOneFromCenter;
-            float spacing = tempScale + (preSpacing - tempScale) * offsetDx / (float) offetOneFromCenter;
-            scrap.setScaleX(spacing);
-            scrap.setScaleY(spacing);
-            topOffset = (int) (getPaddingTop() + (height - scrapHeight * spacing) / 2.0f);
-            int topPosition = (int) (topOffset - scrapHeight * (1 - spacing) / 2.0f);
-            int leftPosition = (int) (startOffset + (itemSpacing - scrapWidth * (1 - spacing) / 2));
-            scrapRect.set(leftPosition, topPosition, leftPosition + scrapWidth, topPosition + scrapHeight);
-            startOffset = (int) (startOffset + scrapWidth * spacing + itemSpacing);
-            layoutDecorated(scrap, scrapRect.left, scrapRect.top, scrapRect.right, scrapRect.bottom);
-            mLastVisiblePos = i;
-            if (getState().mItemsFrames.get(i) == null) {
-                getState().mItemsFrames.put(i, scrapRect);
-            } else {
-                getState().mItemsFrames.get(i).set(scrapRect);
-            }
+    private final class LayoutPlacer implements GalleryLayoutSolver.ItemPlacer {
+
+        RecyclerView.Recycler mRecycler;
+
+        private View mChild;
+
+        @Override
+        public int obtainItem(int position) {
+            mChild = obtainView(mRecycler, position);
+            return getMainSize(mChild);
+        }
+
+        @Override
+        public void placeItem(int position, float visibleStart, float scale, float distance) {
+            layoutItem(mChild, position, visibleStart, scale, distance);
+        }
+
+        /**
+         * 布局结束后不再持有recycler和itemView
+         */
+        void release() {
+            mRecycler = null;
+            mChild = null;
         }
     }
 
+    private final LayoutPlacer mLayoutPlacer = new LayoutPlacer();
+
     /**
-     * 获取水平方向可用距离
+     * 按缩放后的可见起始边缘布局item, 交叉方向居中, 同时应用{@link ItemTransformer}
+     *
+     * @param visibleStart 缩放后item在布局方向上的起始边缘
+     * @param scale        缩放系数, 以item中心为轴缩放
+     * @param distance     item到中心线的距离(以item数计), 负数表示在起始一侧
      */
-    private int getHorizontalSpace() {
-        return getWidth() - getPaddingRight() - getPaddingLeft();
+    private void layoutItem(View child, int position, float visibleStart, float scale, float distance) {
+        int size = getMainSize(child);
+        int crossSize = getCrossSize(child);
+        //未缩放的frame比可见区域多出 size * (1 - scale) / 2
+        int start = (int) (visibleStart - size * (1 - scale) / 2);
+        int crossStart = (int) (getCrossPaddingStart() + (getCrossSpace() - crossSize) / 2.0f);
+        Rect frame = mFrameRect;
+        if (mOrientation == HORIZONTAL) {
+            frame.set(start, crossStart, start + size, crossStart + crossSize);
+        } else {
+            frame.set(crossStart, start, crossStart + crossSize, start + size);
+        }
+        child.setScaleX(scale);
+        child.setScaleY(scale);
+        if (mTransformScrollEnabled && canTransformOnly(child, frame)) {
+            //只修改RenderNode属性, 不触发layout
+            if (mOrientation == HORIZONTAL) {
+                child.setTranslationX(frame.left - getDecoratedLeft(child));
+            } else {
+                child.setTranslationY(frame.top - getDecoratedTop(child));
+            }
+        } else {
+            clearTranslation(child);
+            layoutDecorated(child, frame.left, frame.top, frame.right, frame.bottom);
+        }
+        if (mItemTransformer != null) {
+            mItemTransformer.transformItem(child, distance);
+        }
+        recordFrame(toAdapterPosition(position), frame);
     }
 
     /**
-     * 获取垂直方向可用距离
+     * 已布局且尺寸和交叉方向位置不变的item可以只通过translation移动
      */
-    private int getVerticalSpace() {
-        return getHeight() - getPaddingBottom() - getPaddingTop();
+    private boolean canTransformOnly(View child, Rect frame) {
+        if (child.isLayoutRequested()) {
+            return false;
+        }
+        int left = getDecoratedLeft(child);
+        int top = getDecoratedTop(child);
+        if (getDecoratedRight(child) - left != frame.width() || getDecoratedBottom(child) - top != frame.height()) {
+            return false;
+        }
+        return mOrientation == HORIZONTAL ? top == frame.top : left == frame.left;
     }
 
-    public State getState() {
-        if (mState == null) {
-            mState = new State();
+    private void clearTranslation(View child) {
+        if (child.getTranslationX() != 0) {
+            child.setTranslationX(0);
+        }
+        if (child.getTranslationY() != 0) {
+            child.setTranslationY(0);
+        }
+    }
+
+    /**
+     * item在布局方向上的translation
+     */
+    private float getMainTranslation(View child) {
+        return mOrientation == HORIZONTAL ? child.getTranslationX() : child.getTranslationY();
+    }
+
+    /**
+     * item在布局方向上的尺寸(包含Decoration)
+     */
+    private int getMainSize(View child) {
+        return mOrientation == HORIZONTAL ? getDecoratedMeasuredWidth(child) : getDecoratedMeasuredHeight(child);
+    }
+
+    /**
+     * item在交叉方向上的尺寸(包含Decoration)
+     */
+    private int getCrossSize(View child) {
+        return mOrientation == HORIZONTAL ? getDecoratedMeasuredHeight(child) : getDecoratedMeasuredWidth(child);
+    }
+
+    private int getCrossPaddingStart() {
+        return mOrientation == HORIZONTAL ? getPaddingTop() : getPaddingLeft();
+    }
+
+    private int getCrossSpace() {
+        return mOrientation == HORIZONTAL ? getVerticalSpace() : getHorizontalSpace();
+    }
+
+    /**
+     * 记录position对应item的frame, 缓存按值保存
+     */
+    private void recordFrame(int position, Rect frame) {
+        ItemFrameCache frames = getState().mItemsFrames;
+        if (mOnLayoutMetricsListener != null) {
+            if (frames.indexOf(position) != -1) {
+                mMetrics.mFrameCacheHits++;
+            } else {
+                mMetrics.mFrameCacheMisses++;
+            }
+        }
+        frames.put(position, frame.left, frame.top, frame.right, frame.bottom);
+    }
+
+    /**
+     * 获取position对应item最近一次布局的frame(未缩放前的位置)
+     *
+     * @param position   item的position
+     * @param outFrame   用于接收frame
+     * @return 没有缓存记录时返回false
+     */
+    public boolean getItemFrame(int position, @NonNull Rect outFrame) {
+        ItemFrameCache frames = getState().mItemsFrames;
+        int index = frames.indexOf(position);
+        if (index == -1) {
+            return false;
+        }
+        outFrame.set(frames.leftAt(index), frames.topAt(index), frames.rightAt(index), frames.bottomAt(index));
+        return true;
+    }
+
+    /**
+     * 获取position对应的itemView: 已经attach的直接复用(只有请求了重新布局才重新测量),
+     * 否则从recycler中获取, 按position顺序添加并测量
+     *
+     * @param position 虚拟position, 循环模式下可以超出[0, itemCount)
+     */
+    private View obtainView(RecyclerView.Recycler recycler, int position) {
+        View child = findAttachedView(position);
+        if (child != null) {
+            if (child.isLayoutRequested() || mSpaceChanged || decorInsetsChanged(child)) {
+                measureItem(child, position);
+            }
+            return child;
+        }
+        int adapterPosition = toAdapterPosition(position);
+        child = recycler.getViewForPosition(adapterPosition);
+        if (mOnLayoutMetricsListener != null) {
+            mMetrics.mChildrenAdded++;
+            if (wasPrefetched(adapterPosition)) {
+                mMetrics.mPrefetchHits++;
+            }
+        }
+        if (getChildCount() == 0) {
+            addView(child);
+            mFirstAttachedPosition = position;
+        } else if (position < mFirstAttachedPosition) {
+            addView(child, 0);
+            mFirstAttachedPosition = position;
+        } else {
+            addView(child);
+        }
+        if (!mSpaceChanged && isMeasureValid(child)) {
+            //同类型item在相同条件下已测量过, 直接使用上次的尺寸
+            recordExtent(position, getMainSize(child));
+            if (mOnLayoutMetricsListener != null) {
+                mMetrics.mMeasureSkipped++;
+            }
+        } else {
+            measureItem(child, position);
+        }
+        return child;
+    }
+
+    /**
+     * 测量item并记录其在布局方向上的尺寸
+     */
+    private void measureItem(View child, int position) {
+        measureChildWithMargins(child, 0, 0);
+        if (mOnLayoutMetricsListener != null) {
+            mMetrics.mChildrenMeasured++;
+        }
+        recordExtent(position, getMainSize(child));
+        //measureChildWithMargins已更新insets, 这里直接读取
+        Rect insets = mDecorInsets;
+        calculateItemDecorationsForChild(child, insets);
+        mMeasureCache.put(getItemViewType(child), insets.left + insets.right, insets.top + insets.bottom,
+                child.getMeasuredWidth(), child.getMeasuredHeight());
+    }
+
+    /**
+     * 记录item在布局方向上的尺寸. 与之前估计的尺寸不同时, 之后所有item的offset都会变化,
+     * 缓存的滑动边界按新的尺寸重新计算
+     */
+    private void recordExtent(int position, int extent) {
+        if (getState().mItemExtents.setExtent(position, extent)) {
+            invalidateScrollBounds();
+        }
+    }
+
+    /**
+     * child没有请求布局, 且insets和上次的测量结果与同类型item的记录一致
+     */
+    private boolean isMeasureValid(View child) {
+        if (child.isLayoutRequested()) {
+            return false;
+        }
+        Rect insets = mDecorInsets;
+        calculateItemDecorationsForChild(child, insets);
+        return mMeasureCache.matches(getItemViewType(child), insets.left + insets.right, insets.top + insets.bottom,
+                child.getMeasuredWidth(), child.getMeasuredHeight());
+    }
+
+    /**
+     * 添加或删除ItemDecoration后insets会被标记为dirty, 重新计算后与测量时使用的insets比较
+     */
+    private boolean decorInsetsChanged(View child) {
+        int horizontal = getDecoratedMeasuredWidth(child) - child.getMeasuredWidth();
+        int vertical = getDecoratedMeasuredHeight(child) - child.getMeasuredHeight();
+        Rect insets = mDecorInsets;
+        calculateItemDecorationsForChild(child, insets);
+        return insets.left + insets.right != horizontal || insets.top + insets.bottom != vertical;
+    }
+
+    /**
+     * 相邻两个item中心点之间的距离, 超出范围时按默认尺寸计算
+     */
+    private int getCenterDistance(int fromPosition, int toPosition) {
+        return getSolver().getCenterDistance(fromPosition, toPosition);
+    }
+
+    /**
+     * 已attach的item按position连续排列, 直接按下标查找
+     */
+    private View findAttachedView(int position) {
+        int childCount = getChildCount();
+        if (childCount == 0) {
+            return null;
+        }
+        int index = position - mFirstAttachedPosition;
+        if (index < 0 || index >= childCount) {
+            return null;
+        }
+        View child = getChildAt(index);
+        int adapterPosition = toAdapterPosition(position);
+        if (getPosition(child) == adapterPosition) {
+            return child;
+        }
+        return findViewByPosition(adapterPosition);
+    }
+
+    /**
+     * 回收[mFirstVisiblePosition, mLastVisiblePos]之外的item, 按下标换算虚拟position,
+     * 循环模式下跨越首尾边界的item同样能正确回收
+     */
+    private void recycleOutOfRange(RecyclerView.Recycler recycler) {
+        Trace.beginSection(TRACE_RECYCLE);
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            int position = mFirstAttachedPosition + i;
+            if (position < mFirstVisiblePosition || position > mLastVisiblePos) {
+                removeAndRecycleView(getChildAt(i), recycler);
+                if (mOnLayoutMetricsListener != null) {
+                    mMetrics.mChildrenRecycled++;
+                }
+            }
+        }
+        Trace.endSection();
+        if (getChildCount() > 0) {
+            mFirstAttachedPosition = Math.max(mFirstAttachedPosition, mFirstVisiblePosition);
+        }
+    }
+
+    private void recycleScrap(RecyclerView.Recycler recycler) {
+        List<RecyclerView.ViewHolder> scrapList = recycler.getScrapList();
+        for (int i = scrapList.size() - 1; i >= 0; i--) {
+            recycler.recycleView(scrapList.get(i).itemView);
+            if (mOnLayoutMetricsListener != null) {
+                mMetrics.mChildrenRecycled++;
+            }
+        }
+    }
+
+    /**
+     * 虚拟position转换为adapter position, 非循环模式下两者相同
+     */
+    int toAdapterPosition(int position) {
+        int itemCount = getItemCount();
+        if (mInfinite && itemCount > 0) {
+            return ItemExtentIndex.floorMod(position, itemCount);
+        }
+        return position;
+    }
+
+    /**
+     * 获取水平方向可用距离
+     */
+    private int getHorizontalSpace() {
+        return getWidth() - getPaddingRight() - getPaddingLeft();
+    }
+
+    /**
+     * 获取垂直方向可用距离
+     */
+    private int getVerticalSpace() {
+        return getHeight() - getPaddingBottom() - getPaddingTop();
+    }
+
+    /**
+     * 获取缩放系数查找表, scaleRatio/scaleCount变化后重建
+     */
+    ScaleTable getScaleTable() {
+        return getSolver().getScaleTable();
+    }
+
+    GalleryLayoutSolver getSolver() {
+        if (mSolver == null) {
+            mSolver = new GalleryLayoutSolver(getState().mItemExtents);
+            mSolver.setConfig(itemSpacing, scaleCount, scaleRatio);
+            mSolver.setLooping(mInfinite);
+        }
+        return mSolver;
+    }
+
+    public State getState() {
+        if (mState == null) {
+            mState = new State();
         }
         return mState;
     }
@@ -956,14 +1164,14 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         if (getChildCount() == 0) {
             return LAYOUT_START;
         }
-        final int firstChildPos = mFirstVisiblePosition;
+        final int firstChildPos = toAdapterPosition(mFirstVisiblePosition);
         return position < firstChildPos ? LAYOUT_START : LAYOUT_END;
     }
 
     @Override
     public PointF computeScrollVectorForPosition(int targetPosition) {
         final int direction = calculateScrollDirectionForPosition(targetPosition);
-        PointF outVector = new PointF();
+        PointF outVector = mScrollVector;
         if (direction == 0) {
             return null;
         }
@@ -977,6 +1185,64 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         return outVector;
     }
 
+    /**
+     * 保存的布局状态: 选中位置、中心线相对选中item的偏移比例以及配置指纹
+     */
+    public static class SavedState implements Parcelable {
+
+        int mSelectedPosition;
+
+        /**
+         * 中心线偏离选中item中心的距离占相邻item中心距离的比例, 取值[0, 1)
+         */
+        float mOffsetFraction;
+
+        int mConfigFingerprint;
+
+        public SavedState() {
+        }
+
+        SavedState(Parcel in) {
+            mSelectedPosition = in.readInt();
+            mOffsetFraction = in.readFloat();
+            mConfigFingerprint = in.readInt();
+        }
+
+        public SavedState(SavedState other) {
+            set(other);
+        }
+
+        void set(SavedState other) {
+            mSelectedPosition = other.mSelectedPosition;
+            mOffsetFraction = other.mOffsetFraction;
+            mConfigFingerprint = other.mConfigFingerprint;
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeInt(mSelectedPosition);
+            dest.writeFloat(mOffsetFraction);
+            dest.writeInt(mConfigFingerprint);
+        }
+
+        public static final Creator<SavedState> CREATOR = new Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
     /**
      * @author chensuilun
      */
@@ -984,7 +1250,12 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         /**
          * Record all item view 's last position after last layout
          */
-        SparseArray<Rect> mItemsFrames;
+        ItemFrameCache mItemsFrames;
+
+        /**
+         * Measured extent of every item along the layout orientation
+         */
+        ItemExtentIndex mItemExtents;
 
         /**
          * RecycleView 's current scroll distance since first layout
@@ -992,7 +1263,8 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         int mScrollDelta;
 
         public State() {
-            mItemsFrames = new SparseArray<>();
+            mItemsFrames = new ItemFrameCache();
+            mItemExtents = new ItemExtentIndex();
             mScrollDelta = 0;
         }
     }
@@ -1013,62 +1285,376 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         return 1f;
     }
 
-    //横向滑动触发
+    /**
+     * 滑动方向上即将进入屏幕的item交给GapWorker提前创建和绑定
+     */
     @Override
-    public int scrollHorizontallyBy(int dx, RecyclerView.Recycler recycler, RecyclerView.State state) {
-        if (mRecycler == null) {
-            mRecycler = recycler;
+    public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state,
+                                                 LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        int delta = mOrientation == HORIZONTAL ? dx : dy;
+        if (getChildCount() == 0 || delta == 0 || mPrefetchItemCount <= 0) {
+            return;
+        }
+        int direction = delta > 0 ? LAYOUT_END : LAYOUT_START;
+        View edgeChild = getChildAt(direction == LAYOUT_END ? getChildCount() - 1 : 0);
+        OrientationHelper helper = getOrientationHelper();
+        //item缩放后的可见边缘
+        float scale = mOrientation == HORIZONTAL ? edgeChild.getScaleX() : edgeChild.getScaleY();
+        int inset = (int) (getMainSize(edgeChild) * (1f - scale) / 2);
+        //只通过translation移动的item, layout位置与实际显示位置相差translation
+        int translation = (int) getMainTranslation(edgeChild);
+        int distance;
+        if (direction == LAYOUT_END) {
+            distance = helper.getDecoratedEnd(edgeChild) + translation - inset - helper.getEndAfterPadding();
+        } else {
+            distance = helper.getStartAfterPadding() - helper.getDecoratedStart(edgeChild) - translation - inset;
+        }
+        distance = Math.max(0, distance);
+        int pitch = getEdgeItemPitch();
+        //边缘item的虚拟position
+        int position = (direction == LAYOUT_END ? mFirstAttachedPosition + getChildCount() - 1 : mFirstAttachedPosition)
+                + direction;
+        if (mOnLayoutMetricsListener != null) {
+            int capacity = mPrefetchItemCount + 1 + 2 * FLING_TARGET_NEIGHBORS;
+            if (mPrefetchedPositions == null || mPrefetchedPositions.length < capacity) {
+                mPrefetchedPositions = new int[capacity];
+            }
+            mPrefetchedCount = 0;
+        }
+        for (int i = 0; i < mPrefetchItemCount && (mInfinite || position >= 0 && position < state.getItemCount()); i++) {
+            addPrefetchPosition(layoutPrefetchRegistry, toAdapterPosition(position), distance);
+            distance += pitch;
+            position += direction;
+        }
+        if (mFlingTargetPosition != RecyclerView.NO_POSITION) {
+            collectFlingTargetPositions(state.getItemCount(), pitch, layoutPrefetchRegistry);
+        }
+    }
+
+    /**
+     * 惯性滑动的落点item按距离0提交, GapWorker在当前帧就会绑定它; 两侧的item按间距提交, 在帧间空闲时绑定.
+     * 已绑定的item留在缓存中, 之后每帧重复提交只是查找缓存, 同时避免被滑过的item挤出缓存
+     */
+    private void collectFlingTargetPositions(int itemCount, int pitch, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        int target = mFlingTargetPosition;
+        if (target >= itemCount) {
+            return;
+        }
+        addPrefetchPosition(layoutPrefetchRegistry, target, 0);
+        for (int i = 1; i <= FLING_TARGET_NEIGHBORS; i++) {
+            int before = target - i;
+            int after = target + i;
+            if (mInfinite) {
+                before = ItemExtentIndex.floorMod(before, itemCount);
+                after = ItemExtentIndex.floorMod(after, itemCount);
+            }
+            if (before >= 0 && before != target) {
+                addPrefetchPosition(layoutPrefetchRegistry, before, i * pitch);
+            }
+            if (after < itemCount && after != target && after != before) {
+                addPrefetchPosition(layoutPrefetchRegistry, after, i * pitch);
+            }
+        }
+    }
+
+    private void addPrefetchPosition(LayoutPrefetchRegistry layoutPrefetchRegistry, int adapterPosition, int distance) {
+        layoutPrefetchRegistry.addPosition(adapterPosition, distance);
+        if (mOnLayoutMetricsListener != null && mPrefetchedPositions != null) {
+            mPrefetchedPositions[mPrefetchedCount++] = adapterPosition;
+        }
+    }
+
+    /**
+     * 嵌套在其他RecyclerView中时, 外层的GapWorker提前绑定即将显示的选中item及两侧的item,
+     * 选中位置优先取待恢复的状态和待跳转的位置
+     */
+    @Override
+    public void collectInitialPrefetchPositions(int adapterItemCount, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        if (adapterItemCount == 0 || mInitialPrefetchItemCount <= 0) {
+            return;
+        }
+        int anchor;
+        if (mPendingSavedState != null) {
+            anchor = mPendingSavedState.mSelectedPosition;
+        } else if (mPendingScrollPosition != RecyclerView.NO_POSITION) {
+            anchor = mPendingScrollPosition;
+        } else {
+            anchor = mCurSelectedPosition != -1 ? mCurSelectedPosition : mInitialSelectedPosition;
+        }
+        anchor = Math.min(Math.max(0, anchor), adapterItemCount - 1);
+        int count = Math.min(mInitialPrefetchItemCount, adapterItemCount);
+        layoutPrefetchRegistry.addPosition(anchor, 0);
+        int added = 1;
+        //从选中item向两侧交替添加, 循环模式下跨越首尾边界
+        for (int i = 1; added < count; i++) {
+            int before = anchor - i;
+            int after = anchor + i;
+            if (mInfinite) {
+                before = ItemExtentIndex.floorMod(before, adapterItemCount);
+                after = ItemExtentIndex.floorMod(after, adapterItemCount);
+            } else if (before < 0 && after >= adapterItemCount) {
+                break;
+            }
+            if (mInfinite || before >= 0) {
+                layoutPrefetchRegistry.addPosition(before, 0);
+                added++;
+            }
+            if (added < count && (mInfinite ? after != before : after < adapterItemCount)) {
+                layoutPrefetchRegistry.addPosition(after, 0);
+                added++;
+            }
+        }
+    }
+
+    /**
+     * 嵌套在其他RecyclerView中时, 整行进入屏幕前提前绑定的item数量(包含选中的item), 默认3,
+     * 一般设置为{@link #getMaxVisibleItemCount()}使进入屏幕时所有可见item都已绑定
+     */
+    public void setInitialPrefetchItemCount(int initialPrefetchItemCount) {
+        mInitialPrefetchItemCount = initialPrefetchItemCount;
+    }
+
+    public int getInitialPrefetchItemCount() {
+        return mInitialPrefetchItemCount;
+    }
+
+    /**
+     * adapterPosition是否在上一次预取提交的位置中
+     */
+    private boolean wasPrefetched(int adapterPosition) {
+        for (int i = 0; i < mPrefetchedCount; i++) {
+            if (mPrefetchedPositions[i] == adapterPosition) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 屏幕边缘处相邻item的间距, 此时item已缩放到最小
+     */
+    private int getEdgeItemPitch() {
+        return (int) (mCenterItemSize * getScaleTable().getMinScale()) + itemSpacing;
+    }
+
+    /**
+     * 根据scaleCount、scaleRatio、itemSpacing和中心item尺寸计算的最多同时可见的item数量,
+     * 首次布局前按scaleCount估算
+     */
+    public int getMaxVisibleItemCount() {
+        return getSolver().getMaxVisibleCount(getOrientationHelper().getTotalSpace());
+    }
+
+    /**
+     * 使用{@link GalleryRecycledViewPool}时, 是否按最多可见的item数量自动扩大其容量, 默认开启.
+     * 普通的回收池总是保持应用设置的容量
+     */
+    public void setAutoSizeRecycledViewPool(boolean autoSize) {
+        mAutoSizeRecycledViewPool = autoSize;
+    }
+
+    public boolean isAutoSizeRecycledViewPool() {
+        return mAutoSizeRecycledViewPool;
+    }
+
+    /**
+     * detach时是否回收全部item, 使多个gallery共享回收池时可以复用离开屏幕的行中的itemView.
+     * 使用{@link GalleryRecycledViewPool}时总是回收
+     */
+    public void setRecycleChildrenOnDetach(boolean recycleChildrenOnDetach) {
+        mRecycleChildrenOnDetach = recycleChildrenOnDetach;
+    }
+
+    public boolean getRecycleChildrenOnDetach() {
+        return mRecycleChildrenOnDetach;
+    }
+
+    /**
+     * 设置滑动时提前绑定的item数量
+     */
+    public void setPrefetchItemCount(int prefetchItemCount) {
+        mPrefetchItemCount = Math.max(0, prefetchItemCount);
+    }
+
+    public int getPrefetchItemCount() {
+        return mPrefetchItemCount;
+    }
+
+    /**
+     * 开启后滑动时已显示的item只更新translation和scale, 不再执行layout,
+     * 只有item进入、离开屏幕或尺寸变化时才重新布局
+     */
+    public void setTransformScrollEnabled(boolean enabled) {
+        mTransformScrollEnabled = enabled;
+    }
+
+    public boolean isTransformScrollEnabled() {
+        return mTransformScrollEnabled;
+    }
+
+    /**
+     * 设置缩放之外的item变换, 在布局时与缩放一起应用, 不需要在onScrolled中再次遍历child.
+     * 更换transformer时旧transformer修改过的属性不会自动恢复
+     */
+    public void setItemTransformer(ItemTransformer itemTransformer) {
+        if (mItemTransformer == itemTransformer) {
+            return;
+        }
+        mItemTransformer = itemTransformer;
+        mTransformerChanged = true;
+        requestLayout();
+    }
+
+    public ItemTransformer getItemTransformer() {
+        return mItemTransformer;
+    }
+
+    @Override
+    public int computeHorizontalScrollOffset(@NonNull RecyclerView.State state) {
+        return computeScrollOffset();
+    }
+
+    @Override
+    public int computeHorizontalScrollExtent(@NonNull RecyclerView.State state) {
+        return computeScrollExtent();
+    }
+
+    @Override
+    public int computeHorizontalScrollRange(@NonNull RecyclerView.State state) {
+        return computeScrollRange();
+    }
+
+    @Override
+    public int computeVerticalScrollOffset(@NonNull RecyclerView.State state) {
+        return computeScrollOffset();
+    }
+
+    @Override
+    public int computeVerticalScrollExtent(@NonNull RecyclerView.State state) {
+        return computeScrollExtent();
+    }
+
+    @Override
+    public int computeVerticalScrollRange(@NonNull RecyclerView.State state) {
+        return computeScrollRange();
+    }
+
+    /**
+     * 滑动距离相对最小边界的距离, 直接由滑动距离换算, 不遍历child.
+     * 循环模式下为中心线距第一个item中心在一轮内的距离
+     */
+    private int computeScrollOffset() {
+        if (getChildCount() == 0 || getItemCount() == 0) {
+            return 0;
+        }
+        if (!mInfinite) {
+            //只有[mMinOffset, mMaxOffset]可以到达, 在最小边界时为0
+            ensureScrollBounds();
+            return (int) Math.max(0, Math.min(getState().mScrollDelta, mMaxOffset) - mMinOffset);
+        }
+        ItemExtentIndex extents = getState().mItemExtents;
+        long offset = extents.centerOffset(mInitialSelectedPosition) + getState().mScrollDelta - extents.centerOffset(0);
+        long loopLength = extents.loopLength();
+        if (loopLength > 0) {
+            offset %= loopLength;
+            if (offset < 0) {
+                offset += loopLength;
+            }
         }
-        // When dx is positive，finger fling from right to left(←)，scrollX+
-        if (getChildCount() == 0 || dx == 0) {
+        return (int) Math.max(0, offset);
+    }
+
+    /**
+     * 滚动条滑块对应一个item的间距, 即一次翻页的距离
+     */
+    private int computeScrollExtent() {
+        if (getChildCount() == 0 || getItemCount() == 0) {
             return 0;
         }
-        int willScroll = dx;
-        float realDx = dx / getDistanceRatio();
-        if (Math.abs(realDx) < 0.00000001f) {
+        return mCenterItemSize + itemSpacing;
+    }
+
+    /**
+     * 可滑动的范围(最小边界到最大边界)加上滑块长度, 循环模式下为一轮的长度加上滑块长度
+     */
+    private int computeScrollRange() {
+        if (getChildCount() == 0 || getItemCount() == 0) {
             return 0;
         }
-        float targetOffset = getState().mScrollDelta + realDx;
-        //handle the boundary
-        if (!mInfinite && targetOffset < getMinOffset()) {
-            willScroll -= (targetOffset - getMinOffset()) * getDistanceRatio();
-        } else if (!mInfinite && targetOffset > getMaxOffset()) {
-            willScroll = (int) ((getMaxOffset() - getState().mScrollDelta) * getDistanceRatio());
-        }
-        realDx = willScroll / getDistanceRatio();
-        getState().mScrollDelta += realDx;
-        fillCover(recycler, 0);
-        return willScroll;
+        long range;
+        if (mInfinite) {
+            range = getState().mItemExtents.loopLength();
+        } else {
+            ensureScrollBounds();
+            range = (long) Math.max(0, mMaxOffset - mMinOffset);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, range + computeScrollExtent());
     }
 
+    //横向滑动触发
+    @Override
+    public int scrollHorizontallyBy(int dx, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        return scrollBy(dx, recycler);
+    }
+
+    //纵向滑动触发
     @Override
     public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
-        if (getChildCount() == 0 || dy == 0) {
+        return scrollBy(dy, recycler);
+    }
+
+    /**
+     * 水平和垂直方向共用的滑动处理: 限制滑动边界后按新的滑动距离重新布局
+     */
+    private int scrollBy(int delta, RecyclerView.Recycler recycler) {
+        // When delta is positive，finger fling from right to left(←) or bottom to top(↑)
+        if (getChildCount() == 0 || delta == 0) {
             return 0;
         }
-        int delta = -dy;
-        int parentCenter = (getOrientationHelper().getEndAfterPadding() - getOrientationHelper().getStartAfterPadding()) / 2 + getOrientationHelper().getStartAfterPadding();
-        View child;
-        if (dy > 0) {
-            //If we've reached the last item, enforce limits
-            if (getPosition(getChildAt(getChildCount() - 1)) == getItemCount() - 1) {
-                child = getChildAt(getChildCount() - 1);
-                delta = -Math.max(0, Math.min(dy, (getDecoratedBottom(child) - getDecoratedTop(child)) / 2 + getDecoratedTop(child) - parentCenter));
-            }
-        } else {
-            //If we've reached the first item, enforce limits
-            if (mFirstVisiblePosition == 0) {
-                child = getChildAt(0);
-                delta = -Math.min(0, Math.max(dy, (getDecoratedBottom(child) - getDecoratedTop(child)) / 2 + getDecoratedTop(child) - parentCenter));
-            }
+        int willScroll = delta;
+        float realDelta = delta / getDistanceRatio();
+        if (Math.abs(realDelta) < 0.00000001f) {
+            return 0;
         }
-        if (BuildConfig.DEBUG) {
-            Log.d(TAG, "scrollVerticallyBy: dy:" + dy + ",fixed:" + delta);
+        float targetOffset = getState().mScrollDelta + realDelta;
+        ensureScrollBounds();
+        //handle the boundary
+        if (!mInfinite && targetOffset < mMinOffset) {
+            willScroll -= (targetOffset - mMinOffset) * getDistanceRatio();
+        } else if (!mInfinite && targetOffset > mMaxOffset) {
+            willScroll = (int) ((mMaxOffset - getState().mScrollDelta) * getDistanceRatio());
+        }
+        realDelta = willScroll / getDistanceRatio();
+        getState().mScrollDelta += realDelta;
+        if (mInfinite) {
+            normalizeLoopDelta();
+        }
+        long start = mOnLayoutMetricsListener != null ? beginMetrics() : 0;
+        fillCover(recycler);
+        if (mOnLayoutMetricsListener != null) {
+            dispatchMetrics(start);
+        }
+        return willScroll;
+    }
+
+    /**
+     * 循环模式下滑动距离超过一轮时减去整轮, 虚拟position同步平移,
+     * 保证无论滑动多远数值都不会溢出. 保留滑动距离的符号, 布局结果不变
+     */
+    private void normalizeLoopDelta() {
+        long loopLength = getState().mItemExtents.loopLength();
+        if (loopLength <= 0) {
+            return;
         }
-        getState().mScrollDelta += -delta;
-        fillCover(recycler, -delta);
-        offsetChildrenVertical(delta);
-        return -delta;
+        int cycles = (int) (getState().mScrollDelta / loopLength);
+        if (cycles == 0) {
+            return;
+        }
+        getState().mScrollDelta -= cycles * loopLength;
+        int shift = cycles * getItemCount();
+        mFirstVisiblePosition -= shift;
+        mLastVisiblePos -= shift;
+        mFirstAttachedPosition -= shift;
     }
 
     public OrientationHelper getOrientationHelper() {
@@ -1121,29 +1707,162 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         mOnItemSelectedListener = onItemSelectedListener;
     }
 
+    /**
+     * 类似ViewPager的页面滑动回调, 由滑动距离计算, 每帧最多回调一次
+     */
+    public interface OnPageChangeListener {
+        /**
+         * @param position             中心线之前(左/上)最近的item的位置
+         * @param positionOffset       中心线越过该item中心的比例, 取值[0, 1)
+         * @param positionOffsetPixels 中心线越过该item中心的距离
+         */
+        void onPageScrolled(int position, float positionOffset, int positionOffsetPixels);
+
+        /**
+         * @param position 距离中心线最近的item变为position
+         */
+        void onPageSelected(int position);
+    }
+
+    private OnPageChangeListener mOnPageChangeListener;
+
+    //已post的回调还未执行
+    private boolean mPageScrolledPending = false;
+    //上一次回调的值, 未变化时不重复回调
+    private int mLastScrolledPosition = RecyclerView.NO_POSITION;
+    private int mLastScrolledPixels;
+    private int mLastPageSelected = RecyclerView.NO_POSITION;
+
+    private final Runnable mDispatchPageScrolled = new Runnable() {
+        @Override
+        public void run() {
+            mPageScrolledPending = false;
+            dispatchPageScrolled();
+        }
+    };
+
+    public void setOnPageChangeListener(OnPageChangeListener onPageChangeListener) {
+        mOnPageChangeListener = onPageChangeListener;
+        mLastScrolledPosition = RecyclerView.NO_POSITION;
+        mLastPageSelected = RecyclerView.NO_POSITION;
+    }
+
+    private void dispatchPageScrolled() {
+        OnPageChangeListener listener = mOnPageChangeListener;
+        if (listener == null || getChildCount() == 0 || getItemCount() == 0) {
+            return;
+        }
+        ItemExtentIndex extents = getState().mItemExtents;
+        long scrollOffset = getScrollOffset();
+        int position = extents.findPositionAtOrBefore(scrollOffset);
+        int pixels = (int) Math.max(0, scrollOffset - extents.centerOffset(position));
+        float positionOffset = 0;
+        if (mInfinite || position < getItemCount() - 1) {
+            positionOffset = Math.min(1f, pixels / (float) getCenterDistance(position, position + 1));
+        } else {
+            pixels = 0;
+        }
+        int adapterPosition = toAdapterPosition(position);
+        if (adapterPosition != mLastScrolledPosition || pixels != mLastScrolledPixels) {
+            mLastScrolledPosition = adapterPosition;
+            mLastScrolledPixels = pixels;
+            listener.onPageScrolled(adapterPosition, positionOffset, pixels);
+        }
+        int selected = toAdapterPosition(positionOffset < 0.5f ? position : position + 1);
+        if (selected != mLastPageSelected) {
+            mLastPageSelected = selected;
+            listener.onPageSelected(selected);
+        }
+    }
+
+    /**
+     * 惯性滑动开始时回调预测的落点
+     */
+    public interface OnFlingTargetListener {
+        /**
+         * 在惯性滑动开始时回调, 此时落点item可能还未创建, 可以提前加载落点item需要的内容(如高清图)
+         *
+         * @param position 惯性滑动结束后停靠在中心的item的adapter position
+         */
+        void onFlingTargetPredicted(int position);
+    }
+
+    private OnFlingTargetListener mOnFlingTargetListener;
+
+    public void setOnFlingTargetListener(OnFlingTargetListener onFlingTargetListener) {
+        mOnFlingTargetListener = onFlingTargetListener;
+    }
+
+    /**
+     * {@link GallerySnapHelper}按速度算出落点后调用: 记录落点供滑动过程中预取, 并通知监听器
+     *
+     * @param target 落点的虚拟position
+     */
+    void onFlingTargetPredicted(int target) {
+        int adapterPosition = toAdapterPosition(target);
+        mFlingTargetPosition = adapterPosition;
+        if (mOnFlingTargetListener != null) {
+            mOnFlingTargetListener.onFlingTargetPredicted(adapterPosition);
+        }
+    }
+
+    /**
+     * 每次布局(onLayoutChildren或一帧滑动)结束后回调工作量统计
+     */
+    public interface OnLayoutMetricsListener {
+        /**
+         * @param metrics 本次布局的统计, 实例在每次布局时复用
+         */
+        void onLayoutMetrics(@NonNull GalleryLayoutMetrics metrics);
+    }
+
+    /**
+     * 设置布局统计监听器, 传入null关闭统计
+     */
+    public void setOnLayoutMetricsListener(OnLayoutMetricsListener onLayoutMetricsListener) {
+        mOnLayoutMetricsListener = onLayoutMetricsListener;
+        if (onLayoutMetricsListener != null && mMetrics == null) {
+            mMetrics = new GalleryLayoutMetrics();
+        }
+        mPrefetchedCount = 0;
+    }
+
+    /**
+     * 最近一次布局的统计, 未开启统计时返回null
+     */
+    public GalleryLayoutMetrics getLastLayoutMetrics() {
+        return mOnLayoutMetricsListener != null ? mMetrics : null;
+    }
+
+    private long beginMetrics() {
+        mMetrics.reset();
+        return System.nanoTime();
+    }
+
+    private void dispatchMetrics(long start) {
+        mMetrics.mLayoutDurationNanos = System.nanoTime() - start;
+        mOnLayoutMetricsListener.onLayoutMetrics(mMetrics);
+    }
+
     @Override
     public void smoothScrollToPosition(RecyclerView recyclerView, RecyclerView.State state, int position) {
-        recyclerView.smoothScrollBy(getOffsetToPosition(position), 0, mSmoothScrollInterpolator);
+        smoothScrollBy(recyclerView, getOffsetToPosition(position));
     }
 
 
+    /**
+     * 记录目标位置并请求布局, 在下一次onLayoutChildren中跳转, 同一帧内多次调用以最后一次为准
+     */
     @Override
     public void scrollToPosition(int position) {
-        mInitialSelectedPosition = Math.min(Math.max(0, mInitialSelectedPosition), getItemCount() - 1);
-        mFirstVisiblePosition = mInitialSelectedPosition;
-        mLastVisiblePos = mInitialSelectedPosition;
-        mCurSelectedPosition = -1;
-        getState().mScrollDelta = 0;
-        if (mCurSelectedView != null) {
-            mCurSelectedView.setSelected(false);
-            mCurSelectedView = null;
+        if (position < 0) {
+            return;
         }
-        //设置首次选中item的位置
-        mInitialSelectedPosition = Math.min(Math.max(0, position), getItemCount() - 1);
-        //移除所有attach过的Views
-        detachAndScrapAttachedViews(mRecycler);
-        //首次填充画面
-        firstFillCover(mRecycler);
+        mPendingScrollPosition = position;
+        //跳转优先于恢复的状态
+        mPendingSavedState = null;
+        invalidateScrollBounds();
+        requestLayout();
     }
 
     /**
@@ -1157,6 +1876,74 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         return mOrientation;
     }
 
+    /**
+     * 设置item间距
+     */
+    public void setItemSpacing(int itemSpacing) {
+        if (this.itemSpacing == itemSpacing) {
+            return;
+        }
+        this.itemSpacing = itemSpacing;
+        onConfigChanged();
+    }
+
+    public int getItemSpacing() {
+        return itemSpacing;
+    }
+
+    /**
+     * 设置缩放的View数量(应该是奇数)
+     */
+    public void setScaleCount(int scaleCount) {
+        if (this.scaleCount == scaleCount) {
+            return;
+        }
+        this.scaleCount = scaleCount;
+        onConfigChanged();
+    }
+
+    public int getScaleCount() {
+        return scaleCount;
+    }
+
+    /**
+     * 设置缩放系数
+     */
+    public void setScaleRatio(float scaleRatio) {
+        if (this.scaleRatio == scaleRatio) {
+            return;
+        }
+        this.scaleRatio = scaleRatio;
+        onConfigChanged();
+    }
+
+    public float getScaleRatio() {
+        return scaleRatio;
+    }
+
+    /**
+     * 设置循环模式, 开启后可以无限滑动, 首尾item相连
+     */
+    public void setInfinite(boolean infinite) {
+        if (mInfinite == infinite) {
+            return;
+        }
+        mInfinite = infinite;
+        getSolver().setLooping(infinite);
+        onConfigChanged();
+    }
+
+    public boolean isInfinite() {
+        return mInfinite;
+    }
+
+    private void onConfigChanged() {
+        getSolver().setConfig(itemSpacing, scaleCount, scaleRatio);
+        invalidateScrollBounds();
+        mConfigChanged = true;
+        requestLayout();
+    }
+
     /**
      * 获取当前选中的位置
      */
@@ -1164,15 +1951,14 @@ public class GalleryLayoutManager extends RecyclerView.LayoutManager implements
         return mCurSelectedPosition;
     }
 
+    /**
+     * 距离中心线最近的item的位置, 由滑动距离直接计算
+     */
     public int centerPosition() {
-        if (mSnapHelper == null) {
-            return -1;
-        }
-        View snapView = mSnapHelper.findSnapView(this);
-        if (snapView == null) {
+        if (getChildCount() == 0 || getItemCount() == 0) {
             return -1;
         }
-        return getPosition(snapView);
+        return toAdapterPosition(findNearestPosition(getScrollOffset()));
     }
 
 }
@@ -0,0 +1,123 @@
+package com.baiyu.gallerylayoutmanager;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 一次布局(onLayoutChildren或一帧滑动)的工作量统计, 通过
+ * {@link GalleryLayoutManager#setOnLayoutMetricsListener(GalleryLayoutManager.OnLayoutMetricsListener)}开启
+ * <p>
+ * 回调中传入的实例在每次布局时复用, 需要保留时使用{@link #GalleryLayoutMetrics(GalleryLayoutMetrics)}复制
+ */
+public final class GalleryLayoutMetrics {
+
+    long mLayoutDurationNanos;
+
+    int mChildrenAdded;
+
+    int mChildrenRecycled;
+
+    int mChildrenMeasured;
+
+    int mMeasureSkipped;
+
+    int mFrameCacheHits;
+
+    int mFrameCacheMisses;
+
+    int mPrefetchHits;
+
+    public GalleryLayoutMetrics() {
+    }
+
+    public GalleryLayoutMetrics(@NonNull GalleryLayoutMetrics other) {
+        mLayoutDurationNanos = other.mLayoutDurationNanos;
+        mChildrenAdded = other.mChildrenAdded;
+        mChildrenRecycled = other.mChildrenRecycled;
+        mChildrenMeasured = other.mChildrenMeasured;
+        mMeasureSkipped = other.mMeasureSkipped;
+        mFrameCacheHits = other.mFrameCacheHits;
+        mFrameCacheMisses = other.mFrameCacheMisses;
+        mPrefetchHits = other.mPrefetchHits;
+    }
+
+    void reset() {
+        mLayoutDurationNanos = 0;
+        mChildrenAdded = 0;
+        mChildrenRecycled = 0;
+        mChildrenMeasured = 0;
+        mMeasureSkipped = 0;
+        mFrameCacheHits = 0;
+        mFrameCacheMisses = 0;
+        mPrefetchHits = 0;
+    }
+
+    /**
+     * 布局耗时(纳秒), 包含从recycler获取、绑定和测量item的时间
+     */
+    public long getLayoutDurationNanos() {
+        return mLayoutDurationNanos;
+    }
+
+    /**
+     * 新添加到RecyclerView的item数量
+     */
+    public int getChildrenAdded() {
+        return mChildrenAdded;
+    }
+
+    /**
+     * 移出可见区域被回收的item数量
+     */
+    public int getChildrenRecycled() {
+        return mChildrenRecycled;
+    }
+
+    /**
+     * 执行了measure的item数量
+     */
+    public int getChildrenMeasured() {
+        return mChildrenMeasured;
+    }
+
+    /**
+     * 新添加但命中测量缓存、跳过measure的item数量
+     */
+    public int getMeasureSkipped() {
+        return mMeasureSkipped;
+    }
+
+    /**
+     * 布局时frame缓存中已有该position记录的次数
+     */
+    public int getFrameCacheHits() {
+        return mFrameCacheHits;
+    }
+
+    /**
+     * 布局时frame缓存中没有该position记录的次数
+     */
+    public int getFrameCacheMisses() {
+        return mFrameCacheMisses;
+    }
+
+    /**
+     * 新添加的item中, 上一次预取已提交给GapWorker的数量
+     */
+    public int getPrefetchHits() {
+        return mPrefetchHits;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "GalleryLayoutMetrics{durationNanos=" + mLayoutDurationNanos
+                + ", added=" + mChildrenAdded
+                + ", recycled=" + mChildrenRecycled
+                + ", measured=" + mChildrenMeasured
+                + ", measureSkipped=" + mMeasureSkipped
+                + ", frameCacheHits=" + mFrameCacheHits
+                + ", frameCacheMisses=" + mFrameCacheMisses
+                + ", prefetchHits=" + mPrefetchHits
+                + '}';
+    }
+}
@@ -0,0 +1,379 @@
+package com.baiyu.gallerylayoutmanager;
+
+/**
+ * 画廊布局的几何计算, 不依赖Android: 缩放序列、每帧item的位置与缩放、滑动边界以及offset与position的互相转换
+ * <p>
+ * GalleryLayoutManager只负责获取、测量和布局itemView, 其余计算都委托给这里,
+ * 因此可以直接在JVM上测试和做性能测试
+ * <p>
+ * position在循环模式下为未取模的虚拟position, offset以第一个item的起始边缘为0
+ */
+final class GalleryLayoutSolver {
+
+    /**
+     * 求解过程中按position获取和放置item, 每个item先调用obtainItem再调用placeItem
+     */
+    interface ItemPlacer {
+        /**
+         * 获取position对应的item, 必要时创建并测量
+         *
+         * @return item在布局方向上的尺寸
+         */
+        int obtainItem(int position);
+
+        /**
+         * 放置最近一次obtainItem获取的item
+         *
+         * @param visibleStart 缩放后item在布局方向上的起始边缘
+         * @param scale        缩放系数, 以item中心为轴缩放
+         * @param distance     item到中心线的距离(以item数计), 负数表示在起始一侧
+         */
+        void placeItem(int position, float visibleStart, float scale, float distance);
+    }
+
+    private final ItemExtentIndex mExtents;
+
+    private int mItemSpacing;
+
+    private int mScaleCount;
+
+    private float mScaleRatio;
+
+    private ScaleTable mScaleTable;
+
+    private boolean mLooping;
+
+    //最近一次求解的结果
+    private int mCenterPosition;
+    private int mFirstPosition;
+    private int mLastPosition;
+
+    GalleryLayoutSolver(ItemExtentIndex extents) {
+        mExtents = extents;
+    }
+
+    void setConfig(int itemSpacing, int scaleCount, float scaleRatio) {
+        mItemSpacing = itemSpacing;
+        mScaleCount = scaleCount;
+        mScaleRatio = scaleRatio;
+    }
+
+    void setLooping(boolean looping) {
+        mLooping = looping;
+        mExtents.setLooping(looping);
+    }
+
+    boolean isLooping() {
+        return mLooping;
+    }
+
+    ItemExtentIndex getExtents() {
+        return mExtents;
+    }
+
+    /**
+     * 获取缩放系数查找表, scaleRatio/scaleCount变化后重建
+     */
+    ScaleTable getScaleTable() {
+        if (mScaleTable == null || !mScaleTable.matches(mScaleRatio, mScaleCount)) {
+            mScaleTable = new ScaleTable(mScaleRatio, mScaleCount);
+        }
+        return mScaleTable;
+    }
+
+    /**
+     * item数量变化或重新布局时清空已测量的尺寸
+     */
+    void reset(int itemCount) {
+        mExtents.reset(itemCount, mItemSpacing);
+        mExtents.setLooping(mLooping);
+    }
+
+    int getItemCount() {
+        return mExtents.getItemCount();
+    }
+
+    /**
+     * 中心线对应的offset
+     *
+     * @param anchorPosition 初始选中的position
+     * @param delta          相对初始选中item的滑动距离
+     */
+    long scrollOffset(int anchorPosition, int delta) {
+        return mExtents.centerOffset(anchorPosition) + delta;
+    }
+
+    /**
+     * 布局时作为中心的item: 向结束方向滑动时取中心线之前的item, 否则取之后的item
+     */
+    int findAnchorPosition(long scrollOffset, int delta) {
+        return delta > 0 ? mExtents.findPositionAtOrBefore(scrollOffset) : mExtents.findPositionAtOrAfter(scrollOffset);
+    }
+
+    /**
+     * 相邻两个item中心点之间的距离, 超出范围时按默认尺寸计算
+     */
+    int getCenterDistance(int fromPosition, int toPosition) {
+        return Math.max(1, (int) (mExtents.centerOffset(toPosition) - mExtents.centerOffset(fromPosition)));
+    }
+
+    /**
+     * 中心点距离offset最近的item
+     */
+    int findNearestPosition(long offset) {
+        int before = mExtents.findPositionAtOrBefore(offset);
+        int after = before + 1;
+        if (!mLooping && after >= getItemCount()) {
+            return before;
+        }
+        if (mExtents.centerOffset(after) - offset < offset - mExtents.centerOffset(before)) {
+            return after;
+        }
+        return before;
+    }
+
+    /**
+     * 中心线从scrollOffset移动到position对应item中心需要滑动的距离, 循环模式下取较短的方向
+     */
+    long getOffsetToPosition(int position, long scrollOffset) {
+        long offset = mExtents.centerOffset(position) - scrollOffset;
+        if (mLooping) {
+            long loopLength = mExtents.loopLength();
+            if (loopLength > 0) {
+                offset %= loopLength;
+                if (offset > loopLength / 2) {
+                    offset -= loopLength;
+                } else if (offset < -loopLength / 2) {
+                    offset += loopLength;
+                }
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * 惯性滑动flingDistance后应停靠的item, 至少向滑动方向移动一个item, 已到达边界时停在当前item
+     *
+     * @param minOffset 中心线可到达的最小offset, 循环模式下不限制
+     * @param maxOffset 中心线可到达的最大offset, 循环模式下不限制
+     */
+    int findFlingTargetPosition(long scrollOffset, int flingDistance, long minOffset, long maxOffset) {
+        int current = findNearestPosition(scrollOffset);
+        if (flingDistance == 0) {
+            return current;
+        }
+        long targetOffset = scrollOffset + flingDistance;
+        if (!mLooping) {
+            targetOffset = Math.max(minOffset, Math.min(maxOffset, targetOffset));
+        }
+        int target = findNearestPosition(targetOffset);
+        if (target == current && (mExtents.centerOffset(current) - scrollOffset) * flingDistance <= 0) {
+            //速度不足以越过最近的item时, 停靠到滑动方向上的下一个item
+            //下一个item超出可到达的范围时停在当前item
+            int next = current + (flingDistance > 0 ? 1 : -1);
+            if (mLooping || next >= 0 && next < getItemCount()
+                    && mExtents.centerOffset(next) >= minOffset && mExtents.centerOffset(next) <= maxOffset) {
+                target = next;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 向结束方向可滑动的最大距离(相对初始选中item)
+     *
+     * @param startEdge 内容区域的起始边缘
+     * @param endEdge   内容区域的结束边缘
+     */
+    float computeMaxOffset(int startEdge, int endEdge, int anchorPosition) {
+        //recyclerview中心点位置
+        int parentCenter = (endEdge - startEdge) / 2 + startEdge;
+        int rightArea = endEdge - parentCenter;
+        int screenItemCount = getScreenItemCount(rightArea);
+        int itemCount = getItemCount();
+        int maxSelectedPosition;
+        if (itemCount - 1 - anchorPosition >= screenItemCount) {
+            maxSelectedPosition = itemCount - 1 - screenItemCount;
+        } else {
+            if (anchorPosition % screenItemCount == 0) {
+                maxSelectedPosition = itemCount - 1 - screenItemCount;
+            } else {
+                maxSelectedPosition = itemCount - 1 - anchorPosition % screenItemCount - 1;
+            }
+        }
+        return mExtents.centerOffset(maxSelectedPosition) - mExtents.centerOffset(anchorPosition);
+    }
+
+    /**
+     * 向起始方向可滑动的最大距离(相对初始选中item, 为负数)
+     *
+     * @param startEdge 内容区域的起始边缘
+     * @param endEdge   内容区域的结束边缘
+     */
+    float computeMinOffset(int startEdge, int endEdge, int anchorPosition) {
+        //recyclerview中心点位置
+        int parentCenter = (endEdge - startEdge) / 2 + startEdge;
+        int leftArea = parentCenter - startEdge;
+        int screenItemCount = getScreenItemCount(leftArea);
+        int minSelectedPosition;
+        if (anchorPosition > screenItemCount) {
+            minSelectedPosition = screenItemCount;
+        } else {
+            if (anchorPosition % screenItemCount == 0) {
+                minSelectedPosition = screenItemCount;
+            } else {
+                minSelectedPosition = anchorPosition % screenItemCount + 1;
+            }
+        }
+        return mExtents.centerOffset(minSelectedPosition) - mExtents.centerOffset(anchorPosition);
+    }
+
+    /**
+     * 内容区域长度为contentLength时最多同时可见的item数量: 中心item、两侧完整放下的item,
+     * 以及两端各一个部分可见的item
+     */
+    int getMaxVisibleCount(int contentLength) {
+        if (mExtents.getDefaultExtent() <= 0) {
+            return Math.max(1, mScaleCount);
+        }
+        return 2 * (getScreenItemCount(contentLength / 2) + 1) + 1;
+    }
+
+    /**
+     * 中心item一侧area距离内能放下的item数量
+     */
+    private int getScreenItemCount(int area) {
+        int centerItemSize = mExtents.getDefaultExtent();
+        int scaleDistance = centerItemSize / 2;
+        ScaleTable scaleTable = getScaleTable();
+        int minItemDistance = Math.max(1, (int) (centerItemSize * scaleTable.scale(scaleTable.getMaxGamma())) + mItemSpacing);
+        for (int i = 0; i < (mScaleCount - 1) / 2; i++) {
+            scaleDistance += mItemSpacing + centerItemSize * scaleTable.scale(i + 1);
+        }
+        int multiple = 0;
+        if (area - scaleDistance > 0) {
+            multiple = (area - scaleDistance) / minItemDistance;
+        }
+        return Math.max(1, (mScaleCount - 1) / 2 + multiple);
+    }
+
+    /**
+     * 根据滑动距离求解一帧的布局: 先放置中心item, 再向两侧填充直到超出内容区域
+     *
+     * @param startEdge      内容区域的起始边缘
+     * @param endEdge        内容区域的结束边缘
+     * @param anchorPosition 初始选中的position
+     * @param delta          相对初始选中item的滑动距离
+     */
+    void solve(int startEdge, int endEdge, int anchorPosition, int delta, ItemPlacer placer) {
+        //recyclerview中心点位置
+        int parentCenter = (endEdge - startEdge) / 2 + startEdge;
+        long scrollOffset = scrollOffset(anchorPosition, delta);
+        int centerPosition = findAnchorPosition(scrollOffset, delta);
+        //中心item偏离中心线的距离
+        int offsetFromCenter;
+        //中心item到滑动方向上相邻item的中心距离
+        int centerDistance;
+        if (delta > 0) {
+            //向结束方向滑动, 中心item向起始方向偏移
+            centerDistance = getCenterDistance(centerPosition, centerPosition + 1);
+            offsetFromCenter = (int) Math.min(scrollOffset - mExtents.centerOffset(centerPosition), centerDistance);
+        } else {
+            //向起始方向滑动, 中心item向结束方向偏移
+            centerDistance = getCenterDistance(centerPosition - 1, centerPosition);
+            offsetFromCenter = (int) Math.min(mExtents.centerOffset(centerPosition) - scrollOffset, centerDistance);
+        }
+        float fraction = offsetFromCenter / (float) centerDistance;
+        float scale = 1f - (1f - mScaleRatio) * fraction;
+        int size = placer.obtainItem(centerPosition);
+        //中心item缩放后的可见边缘
+        float visibleStart, visibleEnd;
+        if (delta > 0) {
+            visibleEnd = parentCenter + size / 2 - offsetFromCenter;
+            visibleStart = visibleEnd - size * scale;
+        } else {
+            visibleStart = parentCenter - size / 2 + offsetFromCenter;
+            visibleEnd = visibleStart + size * scale;
+        }
+        //中心item到中心线的距离, 负数表示偏向起始一侧
+        placer.placeItem(centerPosition, visibleStart, scale, delta > 0 ? -fraction : fraction);
+        mCenterPosition = mFirstPosition = mLastPosition = centerPosition;
+        //向结束方向滑动时, 起始一侧的item远离中心, 结束一侧的item靠近中心
+        int startSideStep = delta > 0 ? 1 : -1;
+        int itemCount = getItemCount();
+        //循环模式下同一个adapter position在屏幕上只出现一次, 两侧合计最多itemCount个item
+        int minPosition = mLooping ? centerPosition - (itemCount - 1) / 2 : 0;
+        fillTowardsStart(placer, centerPosition - 1, minPosition, (int) visibleStart, startEdge, fraction, startSideStep);
+        int maxPosition = mLooping ? mFirstPosition + itemCount - 1 : itemCount - 1;
+        fillTowardsEnd(placer, centerPosition + 1, maxPosition, (int) visibleEnd, endEdge, fraction, -startSideStep);
+    }
+
+    /**
+     * 从中心item向起始方向(左/上)填充
+     *
+     * @param startPosition start position to fill
+     * @param minPosition   可填充的最小position
+     * @param startOffset   上一个item缩放后的起始边缘
+     * @param startEdge     内容区域的起始边缘
+     * @param fraction      中心item偏离中心线的比例
+     * @param scaleStep     item到中心的距离变化方向: 1为远离中心, -1为靠近中心
+     */
+    private void fillTowardsStart(ItemPlacer placer, int startPosition, int minPosition, int startOffset,
+                                  int startEdge, float fraction, int scaleStep) {
+        ScaleTable scaleTable = getScaleTable();
+        for (int i = startPosition; i >= minPosition && startOffset - mItemSpacing > startEdge; i--) {
+            int gamma = startPosition - i + 1;
+            float fromScale = scaleTable.boundedScale(gamma);
+            float scale = fromScale + (scaleTable.boundedScale(gamma + scaleStep) - fromScale) * fraction;
+            int size = placer.obtainItem(i);
+            placer.placeItem(i, startOffset - mItemSpacing - size * scale, scale, -(gamma + scaleStep * fraction));
+            startOffset = (int) (startOffset - size * scale - mItemSpacing);
+            mFirstPosition = i;
+        }
+    }
+
+    /**
+     * 从中心item向结束方向(右/下)填充
+     *
+     * @param startPosition start position to fill
+     * @param maxPosition   可填充的最大position
+     * @param startOffset   上一个item缩放后的结束边缘
+     * @param endEdge       内容区域的结束边缘
+     * @param fraction      中心item偏离中心线的比例
+     * @param scaleStep     item到中心的距离变化方向: 1为远离中心, -1为靠近中心
+     */
+    private void fillTowardsEnd(ItemPlacer placer, int startPosition, int maxPosition, int startOffset,
+                                int endEdge, float fraction, int scaleStep) {
+        ScaleTable scaleTable = getScaleTable();
+        for (int i = startPosition; i <= maxPosition && startOffset + mItemSpacing < endEdge; i++) {
+            int gamma = i - startPosition + 1;
+            float fromScale = scaleTable.boundedScale(gamma);
+            float scale = fromScale + (scaleTable.boundedScale(gamma + scaleStep) - fromScale) * fraction;
+            int size = placer.obtainItem(i);
+            placer.placeItem(i, startOffset + mItemSpacing, scale, gamma + scaleStep * fraction);
+            startOffset = (int) (startOffset + size * scale + mItemSpacing);
+            mLastPosition = i;
+        }
+    }
+
+    /**
+     * 最近一次求解的中心item
+     */
+    int getCenterPosition() {
+        return mCenterPosition;
+    }
+
+    /**
+     * 最近一次求解放置的第一个item
+     */
+    int getFirstPosition() {
+        return mFirstPosition;
+    }
+
+    /**
+     * 最近一次求解放置的最后一个item
+     */
+    int getLastPosition() {
+        return mLastPosition;
+    }
+}
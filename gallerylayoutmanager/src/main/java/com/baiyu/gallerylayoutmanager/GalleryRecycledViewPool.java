@@ -0,0 +1,55 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.util.SparseIntArray;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 多个gallery(如纵向列表中的多行横向gallery)共享的回收池
+ * <p>
+ * 每个{@link GalleryLayoutManager}布局时按自己最多可见的item数量申请容量, 共享池按view type取最大值
+ * 再乘以保留的行数, 容量只增不减. 使用共享池的gallery在detach时会回收全部item,
+ * 新进入屏幕的行直接复用这些itemView, 不需要重新inflate
+ * <p>
+ * 只有这种回收池会被自动扩容, 应用通过{@link #setMaxRecycledViews(int, int)}设置的容量同样只会被更大的需求覆盖
+ */
+public class GalleryRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+    private static final int DEFAULT_RETAINED_ROWS = 2;
+
+    private final int mRetainedRows;
+
+    //每个view type单个gallery需要的最大数量
+    private final SparseIntArray mRowCapacity = new SparseIntArray();
+
+    public GalleryRecycledViewPool() {
+        this(DEFAULT_RETAINED_ROWS);
+    }
+
+    /**
+     * @param retainedRows 回收池保留的行数. 外层列表滑动时新行先布局、旧行后回收, 至少需要保留两行
+     */
+    public GalleryRecycledViewPool(int retainedRows) {
+        mRetainedRows = Math.max(1, retainedRows);
+    }
+
+    /**
+     * 单个gallery需要viewType的itemView数量为count, 容量不足时扩大
+     */
+    void ensureRowCapacity(int viewType, int count) {
+        if (mRowCapacity.get(viewType) >= count) {
+            return;
+        }
+        mRowCapacity.put(viewType, count);
+        super.setMaxRecycledViews(viewType, count * mRetainedRows);
+    }
+
+    /**
+     * 手动指定的容量按行数换算, 之后只会被更大的需求覆盖
+     */
+    @Override
+    public void setMaxRecycledViews(int viewType, int max) {
+        mRowCapacity.put(viewType, (max + mRetainedRows - 1) / mRetainedRows);
+        super.setMaxRecycledViews(viewType, max);
+    }
+}
@@ -0,0 +1,88 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.SnapHelper;
+
+/**
+ * 画廊专用的SnapHelper, 停靠目标和距离都由滑动距离与item尺寸直接计算, 不遍历child
+ * <p>
+ * 惯性滑动按速度预估的距离跨越多个item, 停靠到最接近落点的item. 落点在滑动开始时就确定,
+ * 由{@link GalleryLayoutManager}通知监听器并优先预取
+ */
+final class GallerySnapHelper extends SnapHelper {
+
+    private final GalleryLayoutManager mLayoutManager;
+
+    private RecyclerView mRecyclerView;
+
+    GallerySnapHelper(GalleryLayoutManager layoutManager) {
+        mLayoutManager = layoutManager;
+    }
+
+    @Override
+    public void attachToRecyclerView(@Nullable RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        super.attachToRecyclerView(recyclerView);
+    }
+
+    @Override
+    public int[] calculateDistanceToFinalSnap(@NonNull RecyclerView.LayoutManager layoutManager, @NonNull View targetView) {
+        int distance = mLayoutManager.getOffsetToPosition(layoutManager.getPosition(targetView));
+        int[] out = new int[2];
+        if (layoutManager.canScrollHorizontally()) {
+            out[0] = distance;
+        } else {
+            out[1] = distance;
+        }
+        return out;
+    }
+
+    @Override
+    public View findSnapView(RecyclerView.LayoutManager layoutManager) {
+        return mLayoutManager.findCenterView();
+    }
+
+    @Override
+    public int findTargetSnapPosition(RecyclerView.LayoutManager layoutManager, int velocityX, int velocityY) {
+        if (mLayoutManager.getItemCount() == 0) {
+            return RecyclerView.NO_POSITION;
+        }
+        int target = mLayoutManager.findFlingTargetPosition(getFlingDistance(velocityX, velocityY));
+        return mLayoutManager.toAdapterPosition(target);
+    }
+
+    /**
+     * 直接按落点item计算距离平滑滑动, 不依赖目标item已经布局
+     */
+    @Override
+    public boolean onFling(int velocityX, int velocityY) {
+        if (mRecyclerView == null || mLayoutManager.getChildCount() == 0 || mLayoutManager.getItemCount() == 0) {
+            return false;
+        }
+        int velocity = mLayoutManager.canScrollHorizontally() ? velocityX : velocityY;
+        if (Math.abs(velocity) < mRecyclerView.getMinFlingVelocity()) {
+            return false;
+        }
+        int target = mLayoutManager.findFlingTargetPosition(getFlingDistance(velocityX, velocityY));
+        int distance = mLayoutManager.getScrollDistanceTo(target);
+        if (distance == 0) {
+            return false;
+        }
+        //先记录落点, 开始滑动后第一帧的预取就会绑定落点item
+        mLayoutManager.onFlingTargetPredicted(target);
+        mLayoutManager.smoothScrollBy(mRecyclerView, distance);
+        return true;
+    }
+
+    /**
+     * 按速度预估的惯性滑动距离
+     */
+    private int getFlingDistance(int velocityX, int velocityY) {
+        int[] distances = calculateScrollDistance(velocityX, velocityY);
+        return mLayoutManager.canScrollHorizontally() ? distances[0] : distances[1];
+    }
+}
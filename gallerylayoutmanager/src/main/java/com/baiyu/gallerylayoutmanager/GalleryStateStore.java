@@ -0,0 +1,49 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.util.LongSparseArray;
+
+/**
+ * 按行id保存多个gallery的滑动状态, 用于嵌套在纵向列表中、会被回收和重新绑定的gallery
+ * <p>
+ * 在外层adapter的onViewRecycled中调用{@link GalleryLayoutManager#saveState(GalleryStateStore, long)},
+ * 在onBindViewHolder中调用{@link GalleryLayoutManager#restoreState(GalleryStateStore, long, int)}.
+ * 每行只保存选中位置和偏移比例, 同一行再次保存时复用已有的对象
+ */
+public class GalleryStateStore {
+
+    private final LongSparseArray<GalleryLayoutManager.SavedState> mStates = new LongSparseArray<>();
+
+    /**
+     * 获取rowId对应的状态对象, 不存在时创建
+     */
+    GalleryLayoutManager.SavedState obtain(long rowId) {
+        GalleryLayoutManager.SavedState state = mStates.get(rowId);
+        if (state == null) {
+            state = new GalleryLayoutManager.SavedState();
+            mStates.put(rowId, state);
+        }
+        return state;
+    }
+
+    GalleryLayoutManager.SavedState get(long rowId) {
+        return mStates.get(rowId);
+    }
+
+    /**
+     * 删除rowId对应的状态, 如该行已从列表中移除
+     */
+    public void remove(long rowId) {
+        mStates.remove(rowId);
+    }
+
+    /**
+     * 清空所有状态, 如外层列表整体刷新
+     */
+    public void clear() {
+        mStates.clear();
+    }
+
+    public int size() {
+        return mStates.size();
+    }
+}
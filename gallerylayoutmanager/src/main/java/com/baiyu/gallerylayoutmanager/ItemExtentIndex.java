@@ -0,0 +1,327 @@
+package com.baiyu.gallerylayoutmanager;
+
+import java.util.Arrays;
+
+/**
+ * item尺寸前缀和索引, 支持不同宽度(高度)的item
+ * <p>
+ * 未测量的item按默认尺寸计算; 只有出现与默认尺寸不同的item时才分配数组,
+ * 用树状数组(Fenwick tree)保存与默认尺寸的差值, position与offset的互相转换
+ * 以及单个item尺寸变化都是O(log n)
+ * <p>
+ * offset以第一个item的起始边缘为0, 每个item占用 尺寸 + spacing.
+ * 循环模式下position可以超出[0, itemCount), 按itemCount取模映射到adapter中的item,
+ * offset按一轮的总长度周期延伸
+ */
+final class ItemExtentIndex {
+
+    private int mItemCount;
+
+    private int mDefaultExtent;
+
+    private int mSpacing;
+
+    private boolean mLooping;
+
+    /**
+     * 已测量的尺寸, 0表示未测量. 长度可以大于itemCount, 多出的部分留给之后插入的item
+     */
+    private int[] mExtents;
+
+    /**
+     * 与默认尺寸差值的树状数组, 下标从1开始, 只使用前itemCount + 1项
+     */
+    private long[] mTree;
+
+    void reset(int itemCount, int spacing) {
+        mItemCount = Math.max(0, itemCount);
+        mSpacing = spacing;
+        mExtents = null;
+        mTree = null;
+    }
+
+    void setLooping(boolean looping) {
+        mLooping = looping;
+    }
+
+    int getItemCount() {
+        return mItemCount;
+    }
+
+    int getDefaultExtent() {
+        return mDefaultExtent;
+    }
+
+    /**
+     * 默认尺寸变化后按已测量的尺寸重建, 只在布局时发生
+     */
+    void setDefaultExtent(int defaultExtent) {
+        if (mDefaultExtent == defaultExtent) {
+            return;
+        }
+        mDefaultExtent = defaultExtent;
+        if (mExtents != null) {
+            rebuild();
+        }
+    }
+
+    int extentOf(int position) {
+        if (mLooping && mItemCount > 0) {
+            position = floorMod(position, mItemCount);
+        }
+        if (mExtents == null || position < 0 || position >= mItemCount || mExtents[position] == 0) {
+            return mDefaultExtent;
+        }
+        return mExtents[position];
+    }
+
+    /**
+     * 记录position测量后的尺寸
+     *
+     * @return 尺寸与之前记录(或默认尺寸)不同, 之后item的offset随之变化
+     */
+    boolean setExtent(int position, int extent) {
+        if (mLooping && mItemCount > 0) {
+            position = floorMod(position, mItemCount);
+        }
+        if (position < 0 || position >= mItemCount || extent <= 0) {
+            return false;
+        }
+        int old = extentOf(position);
+        if (old == extent) {
+            return false;
+        }
+        if (mExtents == null) {
+            mExtents = new int[mItemCount];
+            mTree = new long[mItemCount + 1];
+        }
+        mExtents[position] = extent;
+        for (int i = position + 1; i <= mItemCount; i += i & -i) {
+            mTree[i] += extent - old;
+        }
+        return true;
+    }
+
+    /**
+     * position之前所有item(含spacing)占用的距离, 超出范围的position按默认尺寸外推,
+     * 循环模式下按一轮的总长度周期延伸
+     */
+    long offsetOf(int position) {
+        if (mLooping && mItemCount > 0) {
+            int cycle = floorDiv(position, mItemCount);
+            return cycle * loopLength() + linearOffsetOf(position - cycle * mItemCount);
+        }
+        return linearOffsetOf(position);
+    }
+
+    /**
+     * 一轮所有item(含spacing)占用的总距离
+     */
+    long loopLength() {
+        return linearOffsetOf(mItemCount);
+    }
+
+    private long linearOffsetOf(int position) {
+        int clamped = Math.min(Math.max(position, 0), mItemCount);
+        long offset = (long) position * (mDefaultExtent + mSpacing);
+        if (mTree != null) {
+            for (int i = clamped; i > 0; i -= i & -i) {
+                offset += mTree[i];
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * position对应item中心点的offset
+     */
+    long centerOffset(int position) {
+        return offsetOf(position) + extentOf(position) / 2;
+    }
+
+    /**
+     * 中心点offset不大于centerOffset的最后一个position, 非循环模式下结果限制在[0, itemCount - 1]
+     */
+    int findPositionAtOrBefore(long centerOffset) {
+        if (mItemCount == 0) {
+            return 0;
+        }
+        int position;
+        if (mLooping) {
+            long length = loopLength();
+            long cycle = length > 0 ? floorDiv(centerOffset, length) : 0;
+            position = (int) (cycle * mItemCount) + findStartPositionAtOrBefore(centerOffset - cycle * length);
+        } else {
+            position = Math.min(findStartPositionAtOrBefore(centerOffset), mItemCount - 1);
+        }
+        if ((mLooping || position > 0) && this.centerOffset(position) > centerOffset) {
+            position--;
+        }
+        return position;
+    }
+
+    /**
+     * 中心点offset不小于centerOffset的第一个position, 非循环模式下结果限制在[0, itemCount - 1]
+     */
+    int findPositionAtOrAfter(long centerOffset) {
+        int position = findPositionAtOrBefore(centerOffset);
+        if (this.centerOffset(position) < centerOffset && (mLooping || position < mItemCount - 1)) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * 起始offset不大于offset的最后一个position, 取值[0, itemCount]
+     */
+    private int findStartPositionAtOrBefore(long offset) {
+        if (offset <= 0) {
+            return 0;
+        }
+        long pitch = mDefaultExtent + mSpacing;
+        if (mTree == null) {
+            if (pitch <= 0) {
+                return mItemCount;
+            }
+            return (int) Math.min(offset / pitch, mItemCount);
+        }
+        int position = 0;
+        long accumulated = 0;
+        for (int step = Integer.highestOneBit(mItemCount); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= mItemCount) {
+                long candidate = accumulated + step * pitch + mTree[next];
+                if (candidate <= offset) {
+                    position = next;
+                    accumulated = candidate;
+                }
+            }
+        }
+        return position;
+    }
+
+    /**
+     * 在position处插入count个未测量的item, 已测量的尺寸随之后移
+     * <p>
+     * 数组按1.5倍预留容量, 原地移动; 追加到末尾时只补齐新增的树节点, 不重建整棵树
+     */
+    void insert(int position, int count) {
+        position = Math.min(Math.max(position, 0), mItemCount);
+        if (count <= 0) {
+            return;
+        }
+        if (mExtents == null) {
+            mItemCount += count;
+            return;
+        }
+        int oldCount = mItemCount;
+        ensureCapacity(oldCount + count);
+        System.arraycopy(mExtents, position, mExtents, position + count, oldCount - position);
+        Arrays.fill(mExtents, position, position + count, 0);
+        mItemCount += count;
+        if (position == oldCount) {
+            //新增的item未测量, 差值为0, 新节点只需覆盖已有item的区间和
+            for (int i = oldCount + 1; i <= mItemCount; i++) {
+                int from = i - (i & -i);
+                mTree[i] = from < oldCount ? prefixDifference(Math.min(i, oldCount)) - prefixDifference(from) : 0;
+            }
+        } else {
+            rebuild();
+        }
+    }
+
+    /**
+     * 删除[position, position + count)范围内的item
+     */
+    void remove(int position, int count) {
+        position = Math.min(Math.max(position, 0), mItemCount);
+        count = Math.min(count, mItemCount - position);
+        if (count <= 0) {
+            return;
+        }
+        int oldCount = mItemCount;
+        mItemCount -= count;
+        if (mExtents == null) {
+            return;
+        }
+        System.arraycopy(mExtents, position + count, mExtents, position, oldCount - position - count);
+        //空出的部分重置为未测量, 之后插入时直接使用
+        Arrays.fill(mExtents, mItemCount, oldCount, 0);
+        if (position < mItemCount) {
+            rebuild();
+        }
+        //删除末尾的item时前面的树节点不受影响
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (mExtents.length >= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, mExtents.length + (mExtents.length >> 1));
+        int[] extents = new int[newCapacity];
+        System.arraycopy(mExtents, 0, extents, 0, mItemCount);
+        mExtents = extents;
+        long[] tree = new long[newCapacity + 1];
+        System.arraycopy(mTree, 0, tree, 0, mItemCount + 1);
+        mTree = tree;
+    }
+
+    /**
+     * 前count个item与默认尺寸的差值之和
+     */
+    private long prefixDifference(int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 把from处的item移动到to
+     */
+    void move(int from, int to) {
+        if (mExtents == null || from == to || from < 0 || to < 0 || from >= mItemCount || to >= mItemCount) {
+            return;
+        }
+        int extent = mExtents[from];
+        if (from < to) {
+            System.arraycopy(mExtents, from + 1, mExtents, from, to - from);
+        } else {
+            System.arraycopy(mExtents, to, mExtents, to + 1, from - to);
+        }
+        mExtents[to] = extent;
+        rebuild();
+    }
+
+    /**
+     * 按已测量的尺寸原地重建树状数组
+     */
+    private void rebuild() {
+        long[] tree = mTree;
+        Arrays.fill(tree, 0, mItemCount + 1, 0);
+        for (int i = 1; i <= mItemCount; i++) {
+            int extent = mExtents[i - 1];
+            tree[i] += extent == 0 ? 0 : extent - mDefaultExtent;
+            int parent = i + (i & -i);
+            if (parent <= mItemCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    static int floorMod(int value, int divisor) {
+        int mod = value % divisor;
+        return mod < 0 ? mod + divisor : mod;
+    }
+
+    private static int floorDiv(int value, int divisor) {
+        int quotient = value / divisor;
+        return value % divisor < 0 ? quotient - 1 : quotient;
+    }
+
+    private static long floorDiv(long value, long divisor) {
+        long quotient = value / divisor;
+        return value % divisor < 0 ? quotient - 1 : quotient;
+    }
+}
@@ -0,0 +1,195 @@
+package com.baiyu.gallerylayoutmanager;
+
+import java.util.Arrays;
+
+/**
+ * item frame缓存, 用int数组按position直接映射保存left/top/right/bottom
+ * <p>
+ * 容量为2的幂, position按{@code position & (capacity - 1)}映射到槽位,
+ * 相距capacity的position共用一个槽位, 离当前可见区域远的记录会被新的记录覆盖,
+ * 内存占用与adapter的item数量无关. clear()通过递增代数实现, 时间复杂度O(1)
+ */
+final class ItemFrameCache {
+
+    static final int DEFAULT_CAPACITY = 32;
+
+    /**
+     * 可见item两侧额外保留的数量
+     */
+    static final int MARGIN = 8;
+
+    private int mMask;
+
+    private int[] mPositions;
+
+    private int[] mGenerations;
+
+    private int[] mLefts;
+
+    private int[] mTops;
+
+    private int[] mRights;
+
+    private int[] mBottoms;
+
+    /**
+     * 当前代数, 槽位代数与之相等时记录才有效
+     */
+    private int mGeneration = 1;
+
+    /**
+     * offsetPositions暂存受影响记录, 只在adapter变化时使用
+     */
+    private int[] mScratch;
+
+    ItemFrameCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    ItemFrameCache(int capacity) {
+        allocate(roundUpToPowerOfTwo(capacity));
+    }
+
+    private void allocate(int capacity) {
+        mMask = capacity - 1;
+        mPositions = new int[capacity];
+        mGenerations = new int[capacity];
+        mLefts = new int[capacity];
+        mTops = new int[capacity];
+        mRights = new int[capacity];
+        mBottoms = new int[capacity];
+    }
+
+    int capacity() {
+        return mMask + 1;
+    }
+
+    /**
+     * 保证可见的item加上两侧的余量都能放下, 只在扩容时重新分配
+     */
+    void ensureCapacity(int visibleCount) {
+        int required = roundUpToPowerOfTwo(visibleCount + 2 * MARGIN);
+        if (required <= capacity()) {
+            return;
+        }
+        int[] positions = mPositions;
+        int[] generations = mGenerations;
+        int[] lefts = mLefts;
+        int[] tops = mTops;
+        int[] rights = mRights;
+        int[] bottoms = mBottoms;
+        allocate(required);
+        for (int i = 0; i < positions.length; i++) {
+            if (generations[i] == mGeneration) {
+                put(positions[i], lefts[i], tops[i], rights[i], bottoms[i]);
+            }
+        }
+    }
+
+    void put(int position, int left, int top, int right, int bottom) {
+        int slot = position & mMask;
+        mPositions[slot] = position;
+        mGenerations[slot] = mGeneration;
+        mLefts[slot] = left;
+        mTops[slot] = top;
+        mRights[slot] = right;
+        mBottoms[slot] = bottom;
+    }
+
+    /**
+     * @return position对应的槽位, 没有记录时返回-1
+     */
+    int indexOf(int position) {
+        int slot = position & mMask;
+        if (mGenerations[slot] == mGeneration && mPositions[slot] == position) {
+            return slot;
+        }
+        return -1;
+    }
+
+    boolean contains(int position) {
+        return indexOf(position) != -1;
+    }
+
+    int leftAt(int index) {
+        return mLefts[index];
+    }
+
+    int topAt(int index) {
+        return mTops[index];
+    }
+
+    int rightAt(int index) {
+        return mRights[index];
+    }
+
+    int bottomAt(int index) {
+        return mBottoms[index];
+    }
+
+    void remove(int position) {
+        int index = indexOf(position);
+        if (index != -1) {
+            mGenerations[index] = 0;
+        }
+    }
+
+    /**
+     * 删除[start, start + count)范围内的记录
+     */
+    void removeRange(int start, int count) {
+        for (int i = 0; i <= mMask; i++) {
+            if (mGenerations[i] == mGeneration && mPositions[i] >= start && mPositions[i] - start < count) {
+                mGenerations[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * [start, end)范围内的记录整体平移offset, 用于adapter插入、删除、移动item后同步position
+     * <p>
+     * 平移对槽位是一一映射, 受影响的记录先拷贝出来再写回, 不会互相覆盖
+     */
+    void offsetPositions(int start, int end, int offset) {
+        if (offset == 0 || start >= end) {
+            return;
+        }
+        if (mScratch == null || mScratch.length < 5 * capacity()) {
+            mScratch = new int[5 * capacity()];
+        }
+        int count = 0;
+        for (int i = 0; i <= mMask; i++) {
+            int position = mPositions[i];
+            if (mGenerations[i] == mGeneration && position >= start && position < end) {
+                int base = 5 * count++;
+                mScratch[base] = position + offset;
+                mScratch[base + 1] = mLefts[i];
+                mScratch[base + 2] = mTops[i];
+                mScratch[base + 3] = mRights[i];
+                mScratch[base + 4] = mBottoms[i];
+                mGenerations[i] = 0;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int base = 5 * i;
+            put(mScratch[base], mScratch[base + 1], mScratch[base + 2], mScratch[base + 3], mScratch[base + 4]);
+        }
+    }
+
+    void clear() {
+        mGeneration++;
+        if (mGeneration == 0) {
+            //代数回绕时清空所有槽位, 避免旧记录重新生效
+            Arrays.fill(mGenerations, 0);
+            mGeneration = 1;
+        }
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        int capacity = 1;
+        while (capacity < value) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
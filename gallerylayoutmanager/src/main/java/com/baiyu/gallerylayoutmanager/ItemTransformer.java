@@ -0,0 +1,19 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+/**
+ * item变换, 在画廊布局每个item时调用, 用于透明度、旋转、阴影等不影响布局的效果
+ * <p>
+ * 滑动的每一帧都会调用, 实现中不应创建对象, 复杂的曲线可以用{@link TransformCurve}预先计算
+ */
+public interface ItemTransformer {
+
+    /**
+     * @param child    已布局并缩放的itemView
+     * @param distance item中心到中心线的距离(以item数计), 0为居中, 负数表示在起始一侧(左/上)
+     */
+    void transformItem(@NonNull View child, float distance);
+}
@@ -0,0 +1,91 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 常用的{@link ItemTransformer}, 曲线都在创建时预先采样
+ */
+public final class ItemTransformers {
+
+    private ItemTransformers() {
+    }
+
+    /**
+     * 离中心越远越透明
+     *
+     * @param minAlpha     fadeDistance及更远处的透明度
+     * @param fadeDistance 透明度变化的距离(以item数计)
+     */
+    public static ItemTransformer alpha(float minAlpha, float fadeDistance) {
+        final TransformCurve curve = TransformCurve.linear(1f, minAlpha, fadeDistance);
+        return new ItemTransformer() {
+            @Override
+            public void transformItem(@NonNull View child, float distance) {
+                child.setAlpha(curve.valueAt(distance));
+            }
+        };
+    }
+
+    /**
+     * 水平画廊的cover flow效果, 两侧的item绕Y轴朝向中心旋转
+     *
+     * @param maxRotation    rotateDistance及更远处的旋转角度
+     * @param rotateDistance 旋转角度变化的距离(以item数计)
+     */
+    public static ItemTransformer coverFlow(float maxRotation, float rotateDistance) {
+        final TransformCurve curve = TransformCurve.linear(0f, maxRotation, rotateDistance);
+        return new ItemTransformer() {
+            @Override
+            public void transformItem(@NonNull View child, float distance) {
+                float rotation = curve.valueAt(distance);
+                child.setRotationY(distance < 0 ? rotation : -rotation);
+            }
+        };
+    }
+
+    /**
+     * 垂直画廊的cover flow效果, 两侧的item绕X轴朝向中心旋转
+     */
+    public static ItemTransformer coverFlowVertical(float maxRotation, float rotateDistance) {
+        final TransformCurve curve = TransformCurve.linear(0f, maxRotation, rotateDistance);
+        return new ItemTransformer() {
+            @Override
+            public void transformItem(@NonNull View child, float distance) {
+                float rotation = curve.valueAt(distance);
+                child.setRotationX(distance < 0 ? -rotation : rotation);
+            }
+        };
+    }
+
+    /**
+     * 中心item的阴影最高, 向两侧降低
+     *
+     * @param maxElevation  中心item的elevation
+     * @param dropDistance  elevation降为0的距离(以item数计)
+     */
+    public static ItemTransformer elevation(float maxElevation, float dropDistance) {
+        final TransformCurve curve = TransformCurve.linear(maxElevation, 0f, dropDistance);
+        return new ItemTransformer() {
+            @Override
+            public void transformItem(@NonNull View child, float distance) {
+                child.setElevation(curve.valueAt(distance));
+            }
+        };
+    }
+
+    /**
+     * 依次应用多个transformer
+     */
+    public static ItemTransformer compose(@NonNull final ItemTransformer... transformers) {
+        return new ItemTransformer() {
+            @Override
+            public void transformItem(@NonNull View child, float distance) {
+                for (ItemTransformer transformer : transformers) {
+                    transformer.transformItem(child, distance);
+                }
+            }
+        };
+    }
+}
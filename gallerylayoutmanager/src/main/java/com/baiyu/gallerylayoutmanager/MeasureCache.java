@@ -0,0 +1,95 @@
+package com.baiyu.gallerylayoutmanager;
+
+/**
+ * 按view type记录最近一次测量的结果, 可用空间和decoration insets不变且child没有请求布局时跳过measure
+ * <p>
+ * 可用空间对所有view type相同, 变化时清空全部记录. insets只影响测量时左右/上下的总和, 按总和比较.
+ * view type通常只有几种, 按数组顺序查找, 查询过程中不创建对象
+ */
+final class MeasureCache {
+
+    private static final int FIELDS = 5;
+
+    private static final int TYPE = 0;
+    private static final int INSETS_HORIZONTAL = 1;
+    private static final int INSETS_VERTICAL = 2;
+    private static final int MEASURED_WIDTH = 3;
+    private static final int MEASURED_HEIGHT = 4;
+
+    private int[] mEntries = new int[4 * FIELDS];
+
+    private int mSize;
+
+    private int mSpaceWidth = -1;
+
+    private int mSpaceHeight = -1;
+
+    /**
+     * 更新可用空间, 变化时清空所有记录
+     *
+     * @return 可用空间是否变化
+     */
+    boolean updateSpace(int spaceWidth, int spaceHeight) {
+        if (mSpaceWidth == spaceWidth && mSpaceHeight == spaceHeight) {
+            return false;
+        }
+        mSpaceWidth = spaceWidth;
+        mSpaceHeight = spaceHeight;
+        mSize = 0;
+        return true;
+    }
+
+    /**
+     * child上一次的测量结果与同类型item的记录一致, 且insets总和相同
+     */
+    boolean matches(int viewType, int insetsHorizontal, int insetsVertical, int measuredWidth, int measuredHeight) {
+        int base = indexOf(viewType);
+        if (base == -1) {
+            return false;
+        }
+        int[] entries = mEntries;
+        return entries[base + INSETS_HORIZONTAL] == insetsHorizontal
+                && entries[base + INSETS_VERTICAL] == insetsVertical
+                && entries[base + MEASURED_WIDTH] == measuredWidth
+                && entries[base + MEASURED_HEIGHT] == measuredHeight;
+    }
+
+    /**
+     * 记录viewType在当前可用空间下最近一次的测量结果
+     */
+    void put(int viewType, int insetsHorizontal, int insetsVertical, int measuredWidth, int measuredHeight) {
+        int base = indexOf(viewType);
+        if (base == -1) {
+            if ((mSize + 1) * FIELDS > mEntries.length) {
+                int[] entries = new int[mEntries.length * 2];
+                System.arraycopy(mEntries, 0, entries, 0, mSize * FIELDS);
+                mEntries = entries;
+            }
+            base = mSize++ * FIELDS;
+        }
+        int[] entries = mEntries;
+        entries[base + TYPE] = viewType;
+        entries[base + INSETS_HORIZONTAL] = insetsHorizontal;
+        entries[base + INSETS_VERTICAL] = insetsVertical;
+        entries[base + MEASURED_WIDTH] = measuredWidth;
+        entries[base + MEASURED_HEIGHT] = measuredHeight;
+    }
+
+    /**
+     * 清空记录, 下一次updateSpace视为空间变化
+     */
+    void clear() {
+        mSize = 0;
+        mSpaceWidth = -1;
+        mSpaceHeight = -1;
+    }
+
+    private int indexOf(int viewType) {
+        for (int i = 0; i < mSize; i++) {
+            if (mEntries[i * FIELDS + TYPE] == viewType) {
+                return i * FIELDS;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,78 @@
+package com.baiyu.gallerylayoutmanager;
+
+/**
+ * 缩放系数查找表, 按item到中心的距离(相隔item数)索引
+ * <p>
+ * 只在scaleRatio/scaleCount变化时重建, 滑动过程中不再调用Math.pow
+ */
+final class ScaleTable {
+
+    private final float mScaleRatio;
+
+    private final int mScaleCount;
+
+    /**
+     * 缩放的最大层级, 即(scaleCount - 1) / 2
+     */
+    private final int mMaxGamma;
+
+    /**
+     * scaleRatio^d, d取值[0, mMaxGamma + 1]
+     */
+    private final float[] mScales;
+
+    /**
+     * max(mMinScale, scaleRatio^d), d取值[0, mMaxGamma + 1]
+     */
+    private final float[] mBoundedScales;
+
+    /**
+     * 最小缩放系数scaleRatio^((scaleCount - 1) / 2f)
+     */
+    private final float mMinScale;
+
+    ScaleTable(float scaleRatio, int scaleCount) {
+        mScaleRatio = scaleRatio;
+        mScaleCount = scaleCount;
+        mMaxGamma = Math.max(0, (scaleCount - 1) >> 1);
+        mMinScale = (float) Math.pow(scaleRatio, Math.max(0, scaleCount - 1) / 2f);
+        mScales = new float[mMaxGamma + 2];
+        mBoundedScales = new float[mMaxGamma + 2];
+        for (int d = 0; d < mScales.length; d++) {
+            mScales[d] = (float) Math.pow(scaleRatio, d);
+            mBoundedScales[d] = Math.max(mMinScale, mScales[d]);
+        }
+    }
+
+    /**
+     * 配置未变化时复用原有的表
+     */
+    boolean matches(float scaleRatio, int scaleCount) {
+        return mScaleRatio == scaleRatio && mScaleCount == scaleCount;
+    }
+
+    int getMaxGamma() {
+        return mMaxGamma;
+    }
+
+    float getMinScale() {
+        return mMinScale;
+    }
+
+    /**
+     * scaleRatio^min(distance, maxGamma)
+     */
+    float scale(int distance) {
+        return mScales[Math.min(Math.max(distance, 0), mMaxGamma)];
+    }
+
+    /**
+     * max(minScale, scaleRatio^distance)
+     */
+    float boundedScale(int distance) {
+        if (distance >= mBoundedScales.length) {
+            return mMinScale;
+        }
+        return mBoundedScales[Math.max(distance, 0)];
+    }
+}
@@ -0,0 +1,60 @@
+package com.baiyu.gallerylayoutmanager;
+
+/**
+ * 预先采样的变换曲线, 按到中心线的距离查表并线性插值, 滑动时不再计算曲线
+ * <p>
+ * 曲线关于中心对称, 按距离的绝对值取值, 超过maxDistance时取最远处的值
+ */
+public final class TransformCurve {
+
+    /**
+     * 每个item距离内的采样数
+     */
+    static final int SAMPLES_PER_ITEM = 32;
+
+    public interface Function {
+        /**
+         * @param distance 到中心线的距离(以item数计), 取值[0, maxDistance]
+         */
+        float evaluate(float distance);
+    }
+
+    private final float[] mValues;
+
+    private final float mMaxDistance;
+
+    public TransformCurve(float maxDistance, Function function) {
+        mMaxDistance = Math.max(0, maxDistance);
+        int samples = (int) Math.ceil(mMaxDistance * SAMPLES_PER_ITEM);
+        mValues = new float[samples + 1];
+        for (int i = 0; i <= samples; i++) {
+            mValues[i] = function.evaluate(Math.min(mMaxDistance, i / (float) SAMPLES_PER_ITEM));
+        }
+    }
+
+    /**
+     * 从中心的from线性变化到maxDistance处的to
+     */
+    public static TransformCurve linear(final float from, final float to, final float maxDistance) {
+        return new TransformCurve(maxDistance, new Function() {
+            @Override
+            public float evaluate(float distance) {
+                return maxDistance == 0 ? to : from + (to - from) * distance / maxDistance;
+            }
+        });
+    }
+
+    public float getMaxDistance() {
+        return mMaxDistance;
+    }
+
+    public float valueAt(float distance) {
+        float sample = Math.abs(distance) * SAMPLES_PER_ITEM;
+        int index = (int) sample;
+        if (index >= mValues.length - 1) {
+            return mValues[mValues.length - 1];
+        }
+        float fraction = sample - index;
+        return mValues[index] + (mValues[index + 1] - mValues[index]) * fraction;
+    }
+}
@@ -0,0 +1,155 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * 增删移动item后, 锚定的item仍然停在中心
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class GalleryAdapterChangeTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1080;
+    private static final int START_POSITION = 50;
+
+    private IdAdapter mAdapter;
+
+    private RecyclerView mRecyclerView;
+
+    private GalleryLayoutManager mLayoutManager;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mAdapter = new IdAdapter(100);
+        mRecyclerView = new RecyclerView(context);
+        //关闭动画, 布局结束后item立即处于最终位置
+        mRecyclerView.setItemAnimator(null);
+        mRecyclerView.setAdapter(mAdapter);
+        mLayoutManager = new GalleryLayoutManager(40, 5, 0.72f);
+        mLayoutManager.attach(mRecyclerView, START_POSITION);
+        layout();
+        assertCentered(START_POSITION);
+    }
+
+    @Test
+    public void insertBeforeCenter_keepsCenterItem() {
+        mAdapter.insert(10, 3);
+        layout();
+        assertCentered(START_POSITION);
+        assertEquals(START_POSITION + 3, mLayoutManager.centerPosition());
+    }
+
+    @Test
+    public void removeCenterItem_centersFollowingItem() {
+        mAdapter.remove(START_POSITION, 1);
+        layout();
+        assertCentered(START_POSITION + 1);
+        assertEquals(START_POSITION, mLayoutManager.centerPosition());
+    }
+
+    @Test
+    public void moveAcrossCenter_keepsCenterItem() {
+        //从中心之前移动到中心之后, 中心item的position减1
+        mAdapter.move(START_POSITION - 2, START_POSITION + 2);
+        layout();
+        assertCentered(START_POSITION);
+        assertEquals(START_POSITION - 1, mLayoutManager.centerPosition());
+
+        //再从中心之后移回中心之前
+        mAdapter.move(START_POSITION + 2, START_POSITION - 2);
+        layout();
+        assertCentered(START_POSITION);
+        assertEquals(START_POSITION, mLayoutManager.centerPosition());
+    }
+
+    /**
+     * id为itemId的item在中心位置: 中心position对应的itemView就是它, 且中心与RecyclerView中心重合
+     */
+    private void assertCentered(int itemId) {
+        View center = mLayoutManager.findViewByPosition(mLayoutManager.centerPosition());
+        assertNotNull(center);
+        assertEquals(itemId, center.getTag());
+        int centerX = (mLayoutManager.getDecoratedLeft(center) + mLayoutManager.getDecoratedRight(center)) / 2;
+        assertEquals(WIDTH / 2, centerX, 1);
+    }
+
+    private void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * 每个item有固定的id, 绑定时写入itemView的tag
+     */
+    static class IdAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final List<Integer> mIds = new ArrayList<>();
+
+        private int mNextId;
+
+        IdAdapter(int itemCount) {
+            for (mNextId = 0; mNextId < itemCount; mNextId++) {
+                mIds.add(mNextId);
+            }
+        }
+
+        void insert(int position, int count) {
+            for (int i = 0; i < count; i++) {
+                mIds.add(position + i, mNextId++);
+            }
+            notifyItemRangeInserted(position, count);
+        }
+
+        void remove(int position, int count) {
+            for (int i = 0; i < count; i++) {
+                mIds.remove(position);
+            }
+            notifyItemRangeRemoved(position, count);
+        }
+
+        void move(int from, int to) {
+            mIds.add(to, mIds.remove(from));
+            notifyItemMoved(from, to);
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(200, 300));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+            holder.itemView.setTag(mIds.get(position));
+        }
+
+        @Override
+        public int getItemCount() {
+            return mIds.size();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 布局后每个可见position都有各自的frame, 且沿布局方向依次排列
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class GalleryItemFrameTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1080;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void horizontalLayout_framesDistinctAndOrdered() {
+        RecyclerView recyclerView = new RecyclerView(mContext);
+        recyclerView.setAdapter(new GalleryScrollAllocationTest.FixedSizeAdapter(100, 200, 300));
+        GalleryLayoutManager manager = new GalleryLayoutManager(40, 5, 0.72f);
+        manager.attach(recyclerView, 50);
+        layout(recyclerView);
+        assertFramesDistinctAndOrdered(manager, GalleryLayoutManager.HORIZONTAL);
+
+        //滑动后frame缓存按新的位置更新
+        recyclerView.scrollBy(333, 0);
+        assertFramesDistinctAndOrdered(manager, GalleryLayoutManager.HORIZONTAL);
+    }
+
+    @Test
+    public void verticalLayout_framesDistinctAndOrdered() {
+        RecyclerView recyclerView = new RecyclerView(mContext);
+        recyclerView.setAdapter(new GalleryScrollAllocationTest.FixedSizeAdapter(100, 300, 200));
+        GalleryLayoutManager manager = new GalleryLayoutManager(GalleryLayoutManager.VERTICAL);
+        manager.attach(recyclerView, 50);
+        layout(recyclerView);
+        assertFramesDistinctAndOrdered(manager, GalleryLayoutManager.VERTICAL);
+
+        recyclerView.scrollBy(0, -333);
+        assertFramesDistinctAndOrdered(manager, GalleryLayoutManager.VERTICAL);
+    }
+
+    /**
+     * 每个已attach的position都能取到frame, 与itemView实际的layout位置一致, 并且沿布局方向严格递增
+     */
+    private static void assertFramesDistinctAndOrdered(GalleryLayoutManager manager, int orientation) {
+        int childCount = manager.getChildCount();
+        assertTrue(childCount > 1);
+        Rect previous = null;
+        for (int i = 0; i < childCount; i++) {
+            View child = manager.getChildAt(i);
+            int position = manager.getPosition(child);
+            Rect frame = new Rect();
+            assertTrue("no frame for " + position, manager.getItemFrame(position, frame));
+            assertEquals(manager.getDecoratedLeft(child), frame.left);
+            assertEquals(manager.getDecoratedTop(child), frame.top);
+            assertEquals(manager.getDecoratedRight(child), frame.right);
+            assertEquals(manager.getDecoratedBottom(child), frame.bottom);
+            if (previous != null) {
+                assertNotEquals(previous, frame);
+                if (orientation == GalleryLayoutManager.HORIZONTAL) {
+                    assertTrue(frame.left > previous.left);
+                } else {
+                    assertTrue(frame.top > previous.top);
+                }
+            }
+            previous = frame;
+        }
+    }
+
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
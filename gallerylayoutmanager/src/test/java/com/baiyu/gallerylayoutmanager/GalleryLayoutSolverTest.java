@@ -0,0 +1,215 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GalleryLayoutSolverTest {
+
+    private static final int ITEM_SIZE = 200;
+
+    private static final int VIEWPORT = 1080;
+
+    /**
+     * 记录放置结果, item尺寸取自索引
+     */
+    private static class RecordingPlacer implements GalleryLayoutSolver.ItemPlacer {
+        final ItemExtentIndex mExtents;
+        final List<Integer> mPositions = new ArrayList<>();
+        final List<Float> mStarts = new ArrayList<>();
+        final List<Float> mScales = new ArrayList<>();
+        final List<Float> mDistances = new ArrayList<>();
+
+        RecordingPlacer(ItemExtentIndex extents) {
+            mExtents = extents;
+        }
+
+        @Override
+        public int obtainItem(int position) {
+            return mExtents.extentOf(position);
+        }
+
+        @Override
+        public void placeItem(int position, float visibleStart, float scale, float distance) {
+            mPositions.add(position);
+            mStarts.add(visibleStart);
+            mScales.add(scale);
+            mDistances.add(distance);
+        }
+
+        float startOf(int position) {
+            return mStarts.get(mPositions.indexOf(position));
+        }
+
+        float scaleOf(int position) {
+            return mScales.get(mPositions.indexOf(position));
+        }
+    }
+
+    private static GalleryLayoutSolver newSolver(int itemCount) {
+        GalleryLayoutSolver solver = new GalleryLayoutSolver(new ItemExtentIndex());
+        solver.setConfig(40, 5, 0.72f);
+        solver.reset(itemCount);
+        solver.getExtents().setDefaultExtent(ITEM_SIZE);
+        return solver;
+    }
+
+    @Test
+    public void solve_atRest_centersAnchorAndScalesNeighbours() {
+        GalleryLayoutSolver solver = newSolver(20);
+        RecordingPlacer placer = new RecordingPlacer(solver.getExtents());
+        solver.solve(0, VIEWPORT, 10, 0, placer);
+        assertEquals(10, solver.getCenterPosition());
+        assertEquals(VIEWPORT / 2 - ITEM_SIZE / 2, placer.startOf(10), 0);
+        assertEquals(1f, placer.scaleOf(10), 0);
+        assertEquals(0.72f, placer.scaleOf(9), 1e-6);
+        assertEquals(0.72f, placer.scaleOf(11), 1e-6);
+        assertEquals(placer.scaleOf(8), placer.scaleOf(12), 0);
+        assertTrue(solver.getFirstPosition() < 10 && solver.getLastPosition() > 10);
+        assertEquals(10 - solver.getFirstPosition(), solver.getLastPosition() - 10);
+    }
+
+    @Test
+    public void solve_placesContiguousPositionsInOrder() {
+        GalleryLayoutSolver solver = newSolver(20);
+        RecordingPlacer placer = new RecordingPlacer(solver.getExtents());
+        solver.solve(0, VIEWPORT, 10, 77, placer);
+        int count = solver.getLastPosition() - solver.getFirstPosition() + 1;
+        assertEquals(count, placer.mPositions.size());
+        for (int position = solver.getFirstPosition(); position < solver.getLastPosition(); position++) {
+            assertTrue(placer.startOf(position) < placer.startOf(position + 1));
+            assertTrue(placer.mDistances.get(placer.mPositions.indexOf(position))
+                    < placer.mDistances.get(placer.mPositions.indexOf(position + 1)));
+        }
+    }
+
+    @Test
+    public void solve_halfwayBetweenItems_hasMatchingScaleOnBothSides() {
+        GalleryLayoutSolver solver = newSolver(20);
+        RecordingPlacer placer = new RecordingPlacer(solver.getExtents());
+        solver.solve(0, VIEWPORT, 10, (ITEM_SIZE + 40) / 2, placer);
+        assertEquals(placer.scaleOf(10), placer.scaleOf(11), 1e-3);
+    }
+
+    @Test
+    public void solve_edges_stopAtAdapterBounds() {
+        GalleryLayoutSolver solver = newSolver(3);
+        RecordingPlacer placer = new RecordingPlacer(solver.getExtents());
+        solver.solve(0, VIEWPORT, 0, 0, placer);
+        assertEquals(0, solver.getFirstPosition());
+        assertEquals(2, solver.getLastPosition());
+    }
+
+    @Test
+    public void solve_looping_neverRepeatsAnAdapterPosition() {
+        GalleryLayoutSolver solver = newSolver(3);
+        solver.setLooping(true);
+        RecordingPlacer placer = new RecordingPlacer(solver.getExtents());
+        solver.solve(0, VIEWPORT * 4, 0, 0, placer);
+        assertEquals(3, solver.getLastPosition() - solver.getFirstPosition() + 1);
+        assertEquals(-1, solver.getFirstPosition());
+    }
+
+    @Test
+    public void bounds_keepLastItemReachable() {
+        GalleryLayoutSolver solver = newSolver(50);
+        float max = solver.computeMaxOffset(0, VIEWPORT, 0);
+        float min = solver.computeMinOffset(0, VIEWPORT, 0);
+        assertTrue(max > 0);
+        assertTrue(min >= 0);
+        assertEquals(0, (long) max % (ITEM_SIZE + 40));
+    }
+
+    @Test
+    public void offsetToPosition_roundTripsThroughNearestPosition() {
+        GalleryLayoutSolver solver = newSolver(10000);
+        for (int position = 0; position < 10000; position += 97) {
+            long offset = solver.getExtents().centerOffset(position);
+            assertEquals(position, solver.findNearestPosition(offset + 10));
+            assertEquals(position, solver.findNearestPosition(offset - 10));
+            assertEquals(0, solver.getOffsetToPosition(position, offset));
+        }
+    }
+
+    @Test
+    public void looping_offsetToPosition_takesTheShorterWay() {
+        GalleryLayoutSolver solver = newSolver(10);
+        solver.setLooping(true);
+        long offset = solver.getExtents().centerOffset(0);
+        assertEquals(-(ITEM_SIZE + 40), solver.getOffsetToPosition(9, offset));
+        assertEquals(ITEM_SIZE + 40, solver.getOffsetToPosition(1, offset));
+    }
+
+    @Test
+    public void flingTarget_movesAtLeastOneItemAndRespectsBounds() {
+        GalleryLayoutSolver solver = newSolver(10);
+        long offset = solver.getExtents().centerOffset(4);
+        assertEquals(5, solver.findFlingTargetPosition(offset, 1, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(3, solver.findFlingTargetPosition(offset, -1, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(7, solver.findFlingTargetPosition(offset, 3 * (ITEM_SIZE + 40), Long.MIN_VALUE, Long.MAX_VALUE));
+        long max = solver.getExtents().centerOffset(6);
+        assertEquals(6, solver.findFlingTargetPosition(offset, 100000, Long.MIN_VALUE, max));
+        //停在边界上时, 继续向边界外的惯性滑动不能越过可到达的范围
+        long atMax = solver.getExtents().centerOffset(7);
+        long atMin = solver.getExtents().centerOffset(2);
+        assertEquals(7, solver.findFlingTargetPosition(atMax, 1, atMin, atMax));
+        assertEquals(7, solver.findFlingTargetPosition(atMax, 500, atMin, atMax));
+        assertEquals(2, solver.findFlingTargetPosition(atMin, -1, atMin, atMax));
+        assertEquals(2, solver.findFlingTargetPosition(atMin, -500, atMin, atMax));
+        //离开边界的方向不受影响
+        assertEquals(6, solver.findFlingTargetPosition(atMax, -1, atMin, atMax));
+        assertEquals(3, solver.findFlingTargetPosition(atMin, 1, atMin, atMax));
+    }
+
+    @Test
+    public void maxVisibleCount_coversEverySolvedFrame() {
+        GalleryLayoutSolver solver = newSolver(100);
+        int maxVisible = solver.getMaxVisibleCount(VIEWPORT);
+        int largest = 0;
+        for (int delta = 0; delta < 2 * (ITEM_SIZE + 40); delta += 7) {
+            RecordingPlacer placer = new RecordingPlacer(solver.getExtents());
+            solver.solve(0, VIEWPORT, 50, delta, placer);
+            largest = Math.max(largest, placer.mPositions.size());
+        }
+        assertTrue(largest + " > " + maxVisible, largest <= maxVisible);
+        //估算只多出两端各一个部分可见的item
+        assertTrue(maxVisible - largest <= 2);
+    }
+
+    @Test
+    public void maxOffset_followsItemsMeasuredWhileScrolling() {
+        //anchor之后的item实际宽度为默认尺寸的两倍, 只有放置时才测量
+        final GalleryLayoutSolver solver = newSolver(100);
+        RecordingPlacer placer = new RecordingPlacer(solver.getExtents()) {
+            @Override
+            public int obtainItem(int position) {
+                if (position > 50) {
+                    solver.getExtents().setExtent(position, 2 * ITEM_SIZE);
+                }
+                return super.obtainItem(position);
+            }
+        };
+        float staleMax = solver.computeMaxOffset(0, VIEWPORT, 50);
+        int delta = 0;
+        for (int i = 0; i < 500; i++) {
+            //每一帧按当前已测量的尺寸重新计算边界
+            int next = (int) Math.min(delta + 600, solver.computeMaxOffset(0, VIEWPORT, 50));
+            if (next == delta) {
+                break;
+            }
+            delta = next;
+            solver.solve(0, VIEWPORT, 50, delta, placer);
+        }
+        assertTrue(delta > staleMax);
+
+        GalleryLayoutSolver measured = newSolver(100);
+        for (int position = 51; position < 100; position++) {
+            measured.getExtents().setExtent(position, 2 * ITEM_SIZE);
+        }
+        assertEquals(measured.computeMaxOffset(0, VIEWPORT, 50), delta, 0f);
+    }
+}
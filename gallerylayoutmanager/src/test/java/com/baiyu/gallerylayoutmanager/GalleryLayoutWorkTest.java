@@ -0,0 +1,342 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 滑动每一帧的布局工作量: 创建、绑定、测量和布局的次数不能超过预算
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class GalleryLayoutWorkTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1080;
+    private static final int ITEM_COUNT = 1000;
+    private static final int START_POSITION = 500;
+
+    /**
+     * 每次fling的初速度(px/帧)和方向, 每帧减速10%
+     */
+    private static final int[][] FLINGS = {{120, 1}, {90, -1}, {150, 1}, {60, -1}, {200, -1}, {200, 1}};
+
+    private Context mContext;
+
+    private WorkCounter mCounter;
+
+    private CountingAdapter mAdapter;
+
+    private RecyclerView mRecyclerView;
+
+    private GalleryLayoutManager mLayoutManager;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mCounter = new WorkCounter();
+        mAdapter = new CountingAdapter(mCounter, ITEM_COUNT, 200, 300);
+        mRecyclerView = new RecyclerView(mContext);
+        mRecyclerView.setAdapter(mAdapter);
+        mLayoutManager = new GalleryLayoutManager(40, 5, 0.72f);
+        //预取由GapWorker在帧间执行, 关闭后每帧的工作量只来自布局本身
+        mLayoutManager.setItemPrefetchEnabled(false);
+        mLayoutManager.attach(mRecyclerView, START_POSITION);
+        layout(mRecyclerView);
+    }
+
+    @Test
+    public void steadyStateFlings_createNothingAndBindOnlyNewItems() {
+        //第一轮填满缓存和回收池
+        runFlings(false);
+        runFlings(true);
+    }
+
+    @Test
+    public void transformScrolling_laysOutOnlyNewItems() {
+        mLayoutManager.setTransformScrollEnabled(true);
+        runFlings(false);
+        Frame frame = new Frame();
+        for (int[] fling : FLINGS) {
+            for (int step = fling[0]; step > 0; step = step * 9 / 10) {
+                scrollFrame(fling[1] * step, frame);
+                assertTrue("layouts " + frame.layouts + " > new items " + frame.newItems,
+                        frame.layouts <= frame.newItems);
+            }
+        }
+    }
+
+    @Test
+    public void extraLayoutPass_doesNoWork() {
+        WorkCounter before = mCounter.copy();
+        mRecyclerView.requestLayout();
+        layout(mRecyclerView);
+        assertEquals(before.creates, mCounter.creates);
+        assertEquals(before.binds, mCounter.binds);
+        assertEquals(before.measures, mCounter.measures);
+    }
+
+    @Test
+    public void insertOutsideWindow_rebindsNothing() {
+        runFlings(false);
+        WorkCounter before = mCounter.copy();
+        mAdapter.insertAtEnd(5);
+        layout(mRecyclerView);
+        assertEquals(before.creates, mCounter.creates);
+        assertEquals(before.binds, mCounter.binds);
+    }
+
+    @Test
+    public void layoutMetrics_matchCountedWork() {
+        runFlings(false);
+        final WorkCounter reported = new WorkCounter();
+        mLayoutManager.setOnLayoutMetricsListener(new GalleryLayoutManager.OnLayoutMetricsListener() {
+            @Override
+            public void onLayoutMetrics(@NonNull GalleryLayoutMetrics metrics) {
+                reported.measures += metrics.getChildrenMeasured();
+                reported.binds += metrics.getChildrenAdded() - metrics.getChildrenRecycled();
+                assertTrue(metrics.getLayoutDurationNanos() >= 0);
+            }
+        });
+        WorkCounter before = mCounter.copy();
+        int childCount = mLayoutManager.getChildCount();
+        runFlings(false);
+        assertEquals(mCounter.measures - before.measures, reported.measures);
+        //新增与回收的item数量之差等于child数量的变化
+        assertEquals(mLayoutManager.getChildCount() - childCount, reported.binds);
+        assertEquals(mLayoutManager.getLastLayoutMetrics().getChildrenAdded(),
+                new GalleryLayoutMetrics(mLayoutManager.getLastLayoutMetrics()).getChildrenAdded());
+    }
+
+    @Test
+    public void flingTarget_notifiedAndPrefetchedAtZeroDistance() throws Exception {
+        final int[] predicted = {RecyclerView.NO_POSITION};
+        mLayoutManager.setOnFlingTargetListener(new GalleryLayoutManager.OnFlingTargetListener() {
+            @Override
+            public void onFlingTargetPredicted(int position) {
+                predicted[0] = position;
+            }
+        });
+        mLayoutManager.onFlingTargetPredicted(START_POSITION + 30);
+        assertEquals(START_POSITION + 30, predicted[0]);
+
+        final List<int[]> prefetched = new ArrayList<>();
+        mLayoutManager.collectAdjacentPrefetchPositions(50, 0, recyclerViewState(),
+                new RecyclerView.LayoutManager.LayoutPrefetchRegistry() {
+                    @Override
+                    public void addPosition(int layoutPosition, int pixelDistance) {
+                        prefetched.add(new int[]{layoutPosition, pixelDistance});
+                    }
+                });
+        boolean targetFound = false;
+        for (int[] entry : prefetched) {
+            if (entry[0] == START_POSITION + 30) {
+                assertEquals(0, entry[1]);
+                targetFound = true;
+            }
+        }
+        assertTrue(targetFound);
+        assertTrue(prefetched.size() >= 3);
+    }
+
+    @Test
+    public void scrollLongerThanWindow_keepsChildrenContiguous() {
+        //item间距40, 一帧越过6个item后再短距离滑动
+        int pitch = 200 + 40;
+        mRecyclerView.scrollBy(6 * pitch, 0);
+        assertChildrenContiguous();
+        mRecyclerView.scrollBy(3 * pitch, 0);
+        assertChildrenContiguous();
+        mRecyclerView.scrollBy(-12 * pitch, 0);
+        assertChildrenContiguous();
+        mRecyclerView.scrollBy(-pitch, 0);
+        assertChildrenContiguous();
+    }
+
+    /**
+     * 已attach的item按position连续排列, 且中心item仍然attach
+     */
+    private void assertChildrenContiguous() {
+        int childCount = mLayoutManager.getChildCount();
+        assertTrue(childCount > 0);
+        int first = mLayoutManager.getPosition(mLayoutManager.getChildAt(0));
+        for (int i = 0; i < childCount; i++) {
+            assertEquals(first + i, mLayoutManager.getPosition(mLayoutManager.getChildAt(i)));
+        }
+        int center = mLayoutManager.centerPosition();
+        assertTrue("center " + center + " not in [" + first + ", " + (first + childCount - 1) + "]",
+                center >= first && center < first + childCount);
+        assertTrue(mLayoutManager.findViewByPosition(center) != null);
+    }
+
+    /**
+     * 执行一轮fling脚本, checkBudget为true时检查每一帧的预算
+     */
+    private void runFlings(boolean checkBudget) {
+        Frame frame = new Frame();
+        for (int[] fling : FLINGS) {
+            for (int step = fling[0]; step > 0; step = step * 9 / 10) {
+                scrollFrame(fling[1] * step, frame);
+                if (!checkBudget) {
+                    continue;
+                }
+                assertEquals("creates in steady state", 0, frame.creates);
+                assertTrue("binds " + frame.binds + " > new items " + frame.newItems, frame.binds <= frame.newItems);
+                assertTrue("measures " + frame.measures + " > new items " + frame.newItems,
+                        frame.measures <= frame.newItems);
+                assertTrue("layouts " + frame.layouts + " > children " + frame.children,
+                        frame.layouts <= frame.children);
+            }
+        }
+    }
+
+    /**
+     * 滑动一帧并统计这一帧的工作量
+     */
+    private void scrollFrame(int delta, Frame frame) {
+        Set<Integer> before = attachedPositions();
+        WorkCounter start = mCounter.copy();
+        mRecyclerView.scrollBy(delta, 0);
+        Set<Integer> after = attachedPositions();
+        after.removeAll(before);
+        frame.newItems = after.size();
+        frame.children = mLayoutManager.getChildCount();
+        frame.creates = mCounter.creates - start.creates;
+        frame.binds = mCounter.binds - start.binds;
+        frame.measures = mCounter.measures - start.measures;
+        frame.layouts = mCounter.layouts - start.layouts;
+    }
+
+    /**
+     * GapWorker传入的是RecyclerView自己的State, 包含当前的item数量
+     */
+    private RecyclerView.State recyclerViewState() throws Exception {
+        Field field = RecyclerView.class.getDeclaredField("mState");
+        field.setAccessible(true);
+        return (RecyclerView.State) field.get(mRecyclerView);
+    }
+
+    private Set<Integer> attachedPositions() {
+        Set<Integer> positions = new HashSet<>();
+        for (int i = 0; i < mLayoutManager.getChildCount(); i++) {
+            positions.add(mLayoutManager.getPosition(mLayoutManager.getChildAt(i)));
+        }
+        return positions;
+    }
+
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    static class Frame {
+        int newItems;
+        int children;
+        int creates;
+        int binds;
+        int measures;
+        int layouts;
+    }
+
+    static class WorkCounter {
+        int creates;
+        int binds;
+        int measures;
+        int layouts;
+
+        WorkCounter copy() {
+            WorkCounter copy = new WorkCounter();
+            copy.creates = creates;
+            copy.binds = binds;
+            copy.measures = measures;
+            copy.layouts = layouts;
+            return copy;
+        }
+    }
+
+    /**
+     * 统计onMeasure和onLayout次数的itemView
+     */
+    static class CountingView extends View {
+
+        private final WorkCounter mCounter;
+
+        CountingView(Context context, WorkCounter counter) {
+            super(context);
+            mCounter = counter;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mCounter.measures++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            mCounter.layouts++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+    }
+
+    static class CountingAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final WorkCounter mCounter;
+        private int mItemCount;
+        private final int mItemWidth;
+        private final int mItemHeight;
+
+        CountingAdapter(WorkCounter counter, int itemCount, int itemWidth, int itemHeight) {
+            mCounter = counter;
+            mItemCount = itemCount;
+            mItemWidth = itemWidth;
+            mItemHeight = itemHeight;
+        }
+
+        void insertAtEnd(int count) {
+            int start = mItemCount;
+            mItemCount += count;
+            notifyItemRangeInserted(start, count);
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            mCounter.creates++;
+            View view = new CountingView(parent.getContext(), mCounter);
+            view.setLayoutParams(new RecyclerView.LayoutParams(mItemWidth, mItemHeight));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+            mCounter.binds++;
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+    }
+}
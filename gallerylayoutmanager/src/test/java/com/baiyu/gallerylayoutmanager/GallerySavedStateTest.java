@@ -0,0 +1,131 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.content.Context;
+import android.os.Parcel;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * onSaveInstanceState/onRestoreInstanceState: Parcel往返、配置不一致以及尺寸变化后的恢复
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class GallerySavedStateTest {
+
+    private static final int HEIGHT = 1080;
+    private static final int PITCH = 200 + 40;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void savedState_parcelRoundTrip() {
+        GalleryLayoutManager.SavedState state = new GalleryLayoutManager.SavedState();
+        state.mSelectedPosition = 42;
+        state.mOffsetFraction = 0.375f;
+        state.mConfigFingerprint = 123456;
+        Parcel parcel = Parcel.obtain();
+        state.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        GalleryLayoutManager.SavedState restored = GalleryLayoutManager.SavedState.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+        assertEquals(42, restored.mSelectedPosition);
+        assertEquals(0.375f, restored.mOffsetFraction, 0f);
+        assertEquals(123456, restored.mConfigFingerprint);
+    }
+
+    @Test
+    public void restore_keepsSelectedItemAndOffsetFraction() {
+        GalleryLayoutManager.SavedState saved = scrollMidItemAndSave(1080);
+        assertEquals(50, saved.mSelectedPosition);
+        assertEquals(100f / PITCH, saved.mOffsetFraction, 0.01f);
+
+        GalleryLayoutManager manager = new GalleryLayoutManager(40, 5, 0.72f);
+        restore(manager, parcelCopy(saved), 1080);
+        GalleryLayoutManager.SavedState again = (GalleryLayoutManager.SavedState) manager.onSaveInstanceState();
+        assertEquals(saved.mSelectedPosition, again.mSelectedPosition);
+        assertEquals(saved.mOffsetFraction, again.mOffsetFraction, 0.01f);
+        assertEquals(50, manager.getCurSelectedPosition());
+    }
+
+    @Test
+    public void restore_afterWidthChangeRescalesOffsetFraction() {
+        //模拟旋转屏幕: 保存时宽1080, 恢复时宽720
+        GalleryLayoutManager.SavedState saved = scrollMidItemAndSave(1080);
+
+        GalleryLayoutManager manager = new GalleryLayoutManager(40, 5, 0.72f);
+        restore(manager, parcelCopy(saved), 720);
+        GalleryLayoutManager.SavedState again = (GalleryLayoutManager.SavedState) manager.onSaveInstanceState();
+        assertEquals(50, again.mSelectedPosition);
+        assertEquals(saved.mOffsetFraction, again.mOffsetFraction, 0.01f);
+        View center = manager.findViewByPosition(manager.getCurSelectedPosition());
+        assertEquals(50, manager.getPosition(center));
+    }
+
+    @Test
+    public void restore_withDifferentConfigKeepsOnlySelectedPosition() {
+        GalleryLayoutManager.SavedState saved = scrollMidItemAndSave(1080);
+
+        //item间距不同, 偏移比例不再有意义
+        GalleryLayoutManager manager = new GalleryLayoutManager(80, 5, 0.72f);
+        restore(manager, parcelCopy(saved), 1080);
+        GalleryLayoutManager.SavedState again = (GalleryLayoutManager.SavedState) manager.onSaveInstanceState();
+        assertEquals(50, again.mSelectedPosition);
+        assertEquals(0f, again.mOffsetFraction, 0f);
+        assertEquals(50, manager.getCurSelectedPosition());
+    }
+
+    /**
+     * 从position 50向结束方向滑动100px(不足半个item)后保存
+     */
+    private GalleryLayoutManager.SavedState scrollMidItemAndSave(int width) {
+        RecyclerView recyclerView = newRecyclerView();
+        GalleryLayoutManager manager = new GalleryLayoutManager(40, 5, 0.72f);
+        manager.attach(recyclerView, 50);
+        layout(recyclerView, width);
+        recyclerView.scrollBy(100, 0);
+        return (GalleryLayoutManager.SavedState) manager.onSaveInstanceState();
+    }
+
+    private void restore(GalleryLayoutManager manager, GalleryLayoutManager.SavedState state, int width) {
+        RecyclerView recyclerView = newRecyclerView();
+        manager.attach(recyclerView, 0);
+        manager.onRestoreInstanceState(state);
+        layout(recyclerView, width);
+    }
+
+    private static GalleryLayoutManager.SavedState parcelCopy(GalleryLayoutManager.SavedState state) {
+        Parcel parcel = Parcel.obtain();
+        state.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        GalleryLayoutManager.SavedState copy = GalleryLayoutManager.SavedState.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+        return copy;
+    }
+
+    private RecyclerView newRecyclerView() {
+        RecyclerView recyclerView = new RecyclerView(mContext);
+        recyclerView.setAdapter(new GalleryScrollAllocationTest.FixedSizeAdapter(100, 200, 300));
+        return recyclerView;
+    }
+
+    private static void layout(RecyclerView recyclerView, int width) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, width, HEIGHT);
+    }
+}
@@ -0,0 +1,122 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 稳定滑动状态下scrollHorizontallyBy/scrollVerticallyBy不应该产生任何对象
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class GalleryScrollAllocationTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1080;
+    private static final int WARM_UP_STEPS = 2000;
+    private static final int MEASURED_STEPS = 5000;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void scrollHorizontally_allocationFreeAfterWarmUp() {
+        RecyclerView recyclerView = new RecyclerView(mContext);
+        recyclerView.setAdapter(new FixedSizeAdapter(1000, 200, 300));
+        new GalleryLayoutManager(40, 5, 0.72f).attach(recyclerView, 500);
+        layout(recyclerView);
+
+        assertEquals(0, allocatedDuringScroll(recyclerView, 13, 0));
+    }
+
+    @Test
+    public void scrollVertically_allocationFreeAfterWarmUp() {
+        RecyclerView recyclerView = new RecyclerView(mContext);
+        recyclerView.setAdapter(new FixedSizeAdapter(1000, 300, 200));
+        new GalleryLayoutManager(GalleryLayoutManager.VERTICAL).attach(recyclerView, 500);
+        layout(recyclerView);
+
+        assertEquals(0, allocatedDuringScroll(recyclerView, 0, 13));
+    }
+
+    /**
+     * 来回滑动, 预热后统计当前线程分配的字节数
+     */
+    private static long allocatedDuringScroll(RecyclerView recyclerView, int dx, int dy) {
+        for (int i = 0; i < WARM_UP_STEPS; i++) {
+            scrollStep(recyclerView, i, dx, dy);
+        }
+        long overhead = allocatedBytes() - allocatedBytes();
+        long start = allocatedBytes();
+        for (int i = 0; i < MEASURED_STEPS; i++) {
+            scrollStep(recyclerView, i, dx, dy);
+        }
+        return Math.max(0, allocatedBytes() - start + overhead);
+    }
+
+    private static void scrollStep(RecyclerView recyclerView, int step, int dx, int dy) {
+        //每200步换一次方向, 保证item不断进出屏幕
+        int sign = (step / 200) % 2 == 0 ? 1 : -1;
+        recyclerView.scrollBy(sign * dx, sign * dy);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    static class FixedSizeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final int mItemCount;
+        private final int mItemWidth;
+        private final int mItemHeight;
+
+        FixedSizeAdapter(int itemCount, int itemWidth, int itemHeight) {
+            mItemCount = itemCount;
+            mItemWidth = itemWidth;
+            mItemHeight = itemHeight;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(mItemWidth, mItemHeight));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 滚动条的offset和range与可到达的滑动范围一致, 滑块能到达两端
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class GalleryScrollBarTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1080;
+
+    private RecyclerView mRecyclerView;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mRecyclerView = new RecyclerView(context);
+        mRecyclerView.setAdapter(new GalleryScrollAllocationTest.FixedSizeAdapter(10, 200, 300));
+        new GalleryLayoutManager(40, 5, 0.72f).attach(mRecyclerView, 5);
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void thumbReachesBothEnds() {
+        mRecyclerView.scrollBy(-100000, 0);
+        assertEquals(0, mRecyclerView.computeHorizontalScrollOffset());
+
+        mRecyclerView.scrollBy(100000, 0);
+        assertEquals(mRecyclerView.computeHorizontalScrollRange(),
+                mRecyclerView.computeHorizontalScrollOffset() + mRecyclerView.computeHorizontalScrollExtent());
+    }
+
+    @Test
+    public void offsetTracksScrolledDistance() {
+        mRecyclerView.scrollBy(-100000, 0);
+        int range = mRecyclerView.computeHorizontalScrollRange() - mRecyclerView.computeHorizontalScrollExtent();
+        assertTrue(range > 0);
+        //按滚动条的offset滑动到中间, 实际滑动距离与offset变化一致
+        mRecyclerView.scrollBy(range / 2, 0);
+        assertEquals(range / 2, mRecyclerView.computeHorizontalScrollOffset());
+    }
+
+    @Test
+    public void itemsWiderThanDefault_lastItemStillReachable() {
+        //中心item为默认尺寸, 之后的item都更宽, 滑动过程中才逐个测量
+        Context context = ApplicationProvider.getApplicationContext();
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setAdapter(new MixedWidthAdapter(100, 50));
+        GalleryLayoutManager manager = new GalleryLayoutManager(40, 5, 0.72f);
+        manager.attach(recyclerView, 50);
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+
+        //每次滑动都在当前边界处停下, 边界随新测量的item更新后才能继续前进
+        int offset = -1;
+        for (int i = 0; i < 200 && offset != recyclerView.computeHorizontalScrollOffset(); i++) {
+            offset = recyclerView.computeHorizontalScrollOffset();
+            recyclerView.scrollBy(600, 0);
+        }
+        //按默认尺寸估计的边界只能到达76左右
+        assertTrue("center " + manager.centerPosition(), manager.centerPosition() >= 90);
+        assertNotNull(manager.findViewByPosition(98));
+        assertEquals(recyclerView.computeHorizontalScrollRange(),
+                recyclerView.computeHorizontalScrollOffset() + recyclerView.computeHorizontalScrollExtent());
+    }
+
+    /**
+     * position大于wideFrom的item宽400, 其余宽200
+     */
+    static class MixedWidthAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final int mItemCount;
+        private final int mWideFrom;
+
+        MixedWidthAdapter(int itemCount, int wideFrom) {
+            mItemCount = itemCount;
+            mWideFrom = wideFrom;
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return position > mWideFrom ? 1 : 0;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(viewType == 1 ? 400 : 200, 300));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.baiyu.gallerylayoutmanager;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按行id保存和恢复滑动状态, 以及嵌套时的初始预取
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class GalleryStateStoreTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1080;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void restoreState_keepsScrolledOffset() {
+        GalleryStateStore store = new GalleryStateStore();
+        RecyclerView first = newRecyclerView();
+        GalleryLayoutManager firstManager = attach(first, 0);
+        first.scrollBy(1000, 0);
+        int offset = first.computeHorizontalScrollOffset();
+        firstManager.saveState(store, 7L);
+
+        RecyclerView second = newRecyclerView();
+        GalleryLayoutManager secondManager = attach(second, 0);
+        assertTrue(secondManager.restoreState(store, 7L, 0));
+        layout(second);
+        assertEquals(firstManager.getCurSelectedPosition(), secondManager.getCurSelectedPosition());
+        assertEquals(offset, second.computeHorizontalScrollOffset(), 1);
+    }
+
+    @Test
+    public void restoreState_unknownRowJumpsToDefault() {
+        RecyclerView recyclerView = newRecyclerView();
+        GalleryLayoutManager manager = attach(recyclerView, 0);
+        assertFalse(manager.restoreState(new GalleryStateStore(), 3L, 20));
+        layout(recyclerView);
+        assertEquals(20, manager.getCurSelectedPosition());
+    }
+
+    @Test
+    public void initialPrefetch_startsFromRestoredPosition() {
+        GalleryStateStore store = new GalleryStateStore();
+        RecyclerView recyclerView = newRecyclerView();
+        GalleryLayoutManager manager = attach(recyclerView, 0);
+        manager.scrollToPosition(40);
+        layout(recyclerView);
+        manager.saveState(store, 1L);
+
+        GalleryLayoutManager rebound = new GalleryLayoutManager(40, 5, 0.72f);
+        rebound.restoreState(store, 1L, 0);
+        rebound.setInitialPrefetchItemCount(5);
+        RecordingRegistry registry = new RecordingRegistry();
+        rebound.collectInitialPrefetchPositions(100, registry);
+        assertEquals(listOf(40, 39, 41, 38, 42), registry.mPositions);
+    }
+
+    @Test
+    public void initialPrefetch_wrapsInLoopingMode() {
+        GalleryLayoutManager manager = new GalleryLayoutManager(40, 5, 0.72f);
+        manager.setInfinite(true);
+        manager.setInitialPrefetchItemCount(10);
+        RecordingRegistry registry = new RecordingRegistry();
+        manager.collectInitialPrefetchPositions(4, registry);
+        assertEquals(listOf(0, 3, 1, 2), registry.mPositions);
+    }
+
+    private RecyclerView newRecyclerView() {
+        RecyclerView recyclerView = new RecyclerView(mContext);
+        recyclerView.setAdapter(new GalleryScrollAllocationTest.FixedSizeAdapter(100, 200, 300));
+        return recyclerView;
+    }
+
+    private static GalleryLayoutManager attach(RecyclerView recyclerView, int position) {
+        GalleryLayoutManager manager = new GalleryLayoutManager(40, 5, 0.72f);
+        manager.attach(recyclerView, position);
+        layout(recyclerView);
+        return manager;
+    }
+
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static List<Integer> listOf(int... values) {
+        List<Integer> list = new ArrayList<>();
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    static class RecordingRegistry implements RecyclerView.LayoutManager.LayoutPrefetchRegistry {
+
+        final List<Integer> mPositions = new ArrayList<>();
+
+        @Override
+        public void addPosition(int layoutPosition, int pixelDistance) {
+            mPositions.add(layoutPosition);
+        }
+    }
+}
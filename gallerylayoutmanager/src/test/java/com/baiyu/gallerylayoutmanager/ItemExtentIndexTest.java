@@ -0,0 +1,181 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ItemExtentIndexTest {
+
+    @Test
+    public void uniformExtents_matchPitchMultiples() {
+        ItemExtentIndex index = new ItemExtentIndex();
+        index.reset(100, 40);
+        index.setDefaultExtent(200);
+        assertEquals(0, index.offsetOf(0));
+        assertEquals(10 * 240, index.offsetOf(10));
+        assertEquals(10 * 240 + 100, index.centerOffset(10));
+        assertEquals(-2 * 240, index.offsetOf(-2));
+        assertEquals(10, index.findPositionAtOrBefore(10 * 240 + 100));
+        assertEquals(10, index.findPositionAtOrBefore(10 * 240 + 339));
+        assertEquals(11, index.findPositionAtOrAfter(10 * 240 + 101));
+    }
+
+    @Test
+    public void mixedExtents_matchBruteForce() {
+        Random random = new Random(42);
+        int count = 500;
+        int spacing = 24;
+        ItemExtentIndex index = new ItemExtentIndex();
+        index.reset(count, spacing);
+        index.setDefaultExtent(300);
+        int[] extents = new int[count];
+        for (int i = 0; i < count; i++) {
+            extents[i] = 300;
+        }
+        for (int n = 0; n < 2000; n++) {
+            int position = random.nextInt(count);
+            extents[position] = random.nextBoolean() ? 300 : 100 + random.nextInt(500);
+            index.setExtent(position, extents[position]);
+        }
+        long offset = 0;
+        for (int i = 0; i < count; i++) {
+            assertEquals(offset, index.offsetOf(i));
+            long center = offset + extents[i] / 2;
+            assertEquals(center, index.centerOffset(i));
+            assertEquals(i, index.findPositionAtOrBefore(center));
+            assertEquals(i, index.findPositionAtOrAfter(center));
+            if (i > 0) {
+                assertEquals(i - 1, index.findPositionAtOrBefore(center - 1));
+            }
+            offset += extents[i] + spacing;
+        }
+    }
+
+    @Test
+    public void defaultExtentChange_keepsMeasuredExtents() {
+        ItemExtentIndex index = new ItemExtentIndex();
+        index.reset(10, 0);
+        index.setDefaultExtent(100);
+        index.setExtent(3, 250);
+        index.setDefaultExtent(200);
+        assertEquals(250, index.extentOf(3));
+        assertEquals(200, index.extentOf(4));
+        assertEquals(3 * 200 + 250, index.offsetOf(4));
+        assertEquals(4 * 200 + 250, index.offsetOf(5));
+    }
+
+    @Test
+    public void positionsOutsideRange_areClamped() {
+        ItemExtentIndex index = new ItemExtentIndex();
+        index.reset(5, 10);
+        index.setDefaultExtent(90);
+        assertEquals(0, index.findPositionAtOrBefore(-1000));
+        assertEquals(4, index.findPositionAtOrBefore(1000000));
+        assertEquals(4, index.findPositionAtOrAfter(1000000));
+    }
+
+    @Test
+    public void looping_wrapsPositionsAndOffsets() {
+        ItemExtentIndex index = new ItemExtentIndex();
+        index.reset(4, 10);
+        index.setLooping(true);
+        index.setDefaultExtent(90);
+        index.setExtent(1, 190);
+        long length = index.loopLength();
+        assertEquals(4 * 100 + 100, length);
+        assertEquals(190, index.extentOf(5));
+        assertEquals(190, index.extentOf(-3));
+        for (int position = -9; position < 9; position++) {
+            assertEquals(index.offsetOf(position + 4), index.offsetOf(position) + length);
+            long center = index.centerOffset(position);
+            assertEquals(position, index.findPositionAtOrBefore(center));
+            assertEquals(position, index.findPositionAtOrBefore(center + 1));
+            assertEquals(position, index.findPositionAtOrAfter(center));
+            assertEquals(position, index.findPositionAtOrAfter(center - 1));
+        }
+    }
+
+    @Test
+    public void insertRemoveMove_shiftMeasuredExtents() {
+        ItemExtentIndex index = new ItemExtentIndex();
+        index.reset(5, 10);
+        index.setDefaultExtent(100);
+        index.setExtent(2, 200);
+        index.insert(1, 2);
+        assertEquals(7, index.getItemCount());
+        assertEquals(200, index.extentOf(4));
+        assertEquals(100, index.extentOf(2));
+        assertEquals(4 * 110, index.offsetOf(4));
+        index.move(4, 0);
+        assertEquals(200, index.extentOf(0));
+        assertEquals(210, index.offsetOf(1));
+        index.remove(0, 3);
+        assertEquals(4, index.getItemCount());
+        assertEquals(4 * 110, index.offsetOf(4));
+    }
+
+    @Test
+    public void randomInsertRemove_matchBruteForce() {
+        Random random = new Random(7);
+        int spacing = 16;
+        ItemExtentIndex index = new ItemExtentIndex();
+        index.reset(50, spacing);
+        index.setDefaultExtent(300);
+        List<Integer> extents = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            extents.add(300);
+        }
+        for (int n = 0; n < 3000; n++) {
+            int op = random.nextInt(6);
+            int count = extents.size();
+            if (op == 0 && count > 0) {
+                int position = random.nextInt(count);
+                int extent = 100 + random.nextInt(500);
+                extents.set(position, extent);
+                index.setExtent(position, extent);
+            } else if (op <= 2) {
+                //末尾追加与中间插入都要覆盖
+                int position = op == 1 ? count : random.nextInt(count + 1);
+                int added = 1 + random.nextInt(5);
+                for (int i = 0; i < added; i++) {
+                    extents.add(position, 300);
+                }
+                index.insert(position, added);
+            } else if (count > 0) {
+                int position = op == 3 ? Math.max(0, count - 3) : random.nextInt(count);
+                int removed = Math.min(1 + random.nextInt(3), count - position);
+                for (int i = 0; i < removed; i++) {
+                    extents.remove(position);
+                }
+                index.remove(position, removed);
+            }
+            assertEquals(extents.size(), index.getItemCount());
+            long offset = 0;
+            for (int i = 0; i < extents.size(); i++) {
+                assertEquals(offset, index.offsetOf(i));
+                assertEquals(i, index.findPositionAtOrBefore(offset + extents.get(i) / 2));
+                offset += extents.get(i) + spacing;
+            }
+            assertEquals(offset, index.loopLength());
+        }
+    }
+
+    @Test
+    public void setExtent_reportsOnlyRealChanges() {
+        ItemExtentIndex index = new ItemExtentIndex();
+        index.reset(10, 0);
+        index.setDefaultExtent(100);
+        //与默认尺寸相同, offset不变
+        assertFalse(index.setExtent(3, 100));
+        assertTrue(index.setExtent(3, 250));
+        assertFalse(index.setExtent(3, 250));
+        assertTrue(index.setExtent(3, 100));
+        assertFalse(index.setExtent(20, 300));
+    }
+}
@@ -0,0 +1,146 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ItemFrameCacheTest {
+
+    @Test
+    public void put_thenReadBack() {
+        ItemFrameCache cache = new ItemFrameCache();
+        cache.put(3, 10, 20, 30, 40);
+        int index = cache.indexOf(3);
+        assertTrue(index >= 0);
+        assertEquals(10, cache.leftAt(index));
+        assertEquals(20, cache.topAt(index));
+        assertEquals(30, cache.rightAt(index));
+        assertEquals(40, cache.bottomAt(index));
+        assertFalse(cache.contains(4));
+    }
+
+    @Test
+    public void farPositions_areEvicted() {
+        ItemFrameCache cache = new ItemFrameCache(16);
+        cache.put(1, 0, 0, 1, 1);
+        cache.put(1 + cache.capacity(), 0, 0, 2, 2);
+        assertFalse(cache.contains(1));
+        assertTrue(cache.contains(1 + cache.capacity()));
+    }
+
+    @Test
+    public void memory_staysConstantForLargeAdapters() {
+        ItemFrameCache cache = new ItemFrameCache();
+        int capacity = cache.capacity();
+        for (int position = 0; position < 50000; position++) {
+            cache.put(position, position, 0, position + 100, 100);
+        }
+        assertEquals(capacity, cache.capacity());
+        assertTrue(cache.contains(49999));
+        assertFalse(cache.contains(0));
+    }
+
+    @Test
+    public void clear_invalidatesAllEntries() {
+        ItemFrameCache cache = new ItemFrameCache();
+        for (int position = 0; position < 10; position++) {
+            cache.put(position, 0, 0, 1, 1);
+        }
+        cache.clear();
+        for (int position = 0; position < 10; position++) {
+            assertFalse(cache.contains(position));
+        }
+        cache.put(5, 1, 2, 3, 4);
+        assertTrue(cache.contains(5));
+    }
+
+    @Test
+    public void ensureCapacity_keepsExistingEntries() {
+        ItemFrameCache cache = new ItemFrameCache(16);
+        for (int position = 0; position < 16; position++) {
+            cache.put(position, position, 0, position + 1, 1);
+        }
+        cache.ensureCapacity(40);
+        assertTrue(cache.capacity() >= 40 + 2 * ItemFrameCache.MARGIN);
+        for (int position = 0; position < 16; position++) {
+            int index = cache.indexOf(position);
+            assertTrue(index >= 0);
+            assertEquals(position, cache.leftAt(index));
+        }
+    }
+
+    /**
+     * 模拟fillRight: 所有item共用一个frame, 每个position的记录仍然各自独立
+     */
+    @Test
+    public void sharedScratchFrame_keepsDistinctFramesPerPosition() {
+        ItemFrameCache cache = new ItemFrameCache();
+        int[] scratch = new int[4];
+        int itemWidth = 200;
+        int itemSpacing = 40;
+        int startOffset = 0;
+        for (int position = 0; position < 7; position++) {
+            scratch[0] = startOffset;
+            scratch[1] = 0;
+            scratch[2] = startOffset + itemWidth;
+            scratch[3] = 300;
+            cache.put(position, scratch[0], scratch[1], scratch[2], scratch[3]);
+            startOffset += itemWidth + itemSpacing;
+        }
+        for (int position = 0; position < 7; position++) {
+            int index = cache.indexOf(position);
+            assertTrue(index >= 0);
+            int expectedLeft = position * (itemWidth + itemSpacing);
+            assertEquals(expectedLeft, cache.leftAt(index));
+            assertEquals(expectedLeft + itemWidth, cache.rightAt(index));
+        }
+        assertNotEquals(cache.leftAt(cache.indexOf(0)), cache.leftAt(cache.indexOf(6)));
+    }
+
+    @Test
+    public void rewrite_updatesOnlyThatPosition() {
+        ItemFrameCache cache = new ItemFrameCache();
+        cache.put(2, 0, 0, 10, 10);
+        cache.put(3, 20, 0, 30, 10);
+        cache.put(2, 5, 0, 15, 10);
+        assertEquals(5, cache.leftAt(cache.indexOf(2)));
+        assertEquals(20, cache.leftAt(cache.indexOf(3)));
+        cache.remove(2);
+        assertFalse(cache.contains(2));
+        assertTrue(cache.contains(3));
+    }
+
+    @Test
+    public void offsetPositions_shiftsOnlyTheAffectedRange() {
+        ItemFrameCache cache = new ItemFrameCache(16);
+        for (int position = 0; position < 10; position++) {
+            cache.put(position, position, 0, position + 1, 1);
+        }
+        cache.offsetPositions(4, Integer.MAX_VALUE, 2);
+        for (int position = 0; position < 4; position++) {
+            assertEquals(position, cache.leftAt(cache.indexOf(position)));
+        }
+        assertFalse(cache.contains(4));
+        assertFalse(cache.contains(5));
+        for (int position = 6; position < 12; position++) {
+            assertEquals(position - 2, cache.leftAt(cache.indexOf(position)));
+        }
+    }
+
+    @Test
+    public void removeRange_thenOffset_closesTheGap() {
+        ItemFrameCache cache = new ItemFrameCache(16);
+        for (int position = 0; position < 10; position++) {
+            cache.put(position, position, 0, position + 1, 1);
+        }
+        cache.removeRange(3, 2);
+        cache.offsetPositions(5, Integer.MAX_VALUE, -2);
+        assertEquals(2, cache.leftAt(cache.indexOf(2)));
+        assertEquals(5, cache.leftAt(cache.indexOf(3)));
+        assertEquals(9, cache.leftAt(cache.indexOf(7)));
+        assertFalse(cache.contains(8));
+    }
+}
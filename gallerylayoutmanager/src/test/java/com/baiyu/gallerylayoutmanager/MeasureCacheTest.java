@@ -0,0 +1,46 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MeasureCacheTest {
+
+    @Test
+    public void matches_sameTypeInsetsAndSize() {
+        MeasureCache cache = new MeasureCache();
+        cache.updateSpace(1080, 1920);
+        cache.put(0, 20, 0, 300, 400);
+        assertTrue(cache.matches(0, 20, 0, 300, 400));
+        assertFalse(cache.matches(1, 20, 0, 300, 400));
+        assertFalse(cache.matches(0, 40, 0, 300, 400));
+        assertFalse(cache.matches(0, 20, 0, 320, 400));
+    }
+
+    @Test
+    public void updateSpace_clearsEntriesOnlyWhenChanged() {
+        MeasureCache cache = new MeasureCache();
+        assertTrue(cache.updateSpace(1080, 1920));
+        cache.put(0, 0, 0, 300, 400);
+        assertFalse(cache.updateSpace(1080, 1920));
+        assertTrue(cache.matches(0, 0, 0, 300, 400));
+        assertTrue(cache.updateSpace(1920, 1080));
+        assertFalse(cache.matches(0, 0, 0, 300, 400));
+    }
+
+    @Test
+    public void put_growsForManyViewTypes() {
+        MeasureCache cache = new MeasureCache();
+        cache.updateSpace(1080, 1920);
+        for (int type = 0; type < 10; type++) {
+            cache.put(type, 0, 0, 100 + type, 200);
+        }
+        for (int type = 0; type < 10; type++) {
+            assertTrue(cache.matches(type, 0, 0, 100 + type, 200));
+        }
+        cache.clear();
+        assertFalse(cache.matches(0, 0, 0, 100, 200));
+        assertTrue(cache.updateSpace(1080, 1920));
+    }
+}
@@ -0,0 +1,44 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScaleTableTest {
+
+    private static final float DELTA = 1e-6f;
+
+    @Test
+    public void scale_matchesClampedPow() {
+        float ratio = 0.72f;
+        int count = 5;
+        ScaleTable table = new ScaleTable(ratio, count);
+        for (int d = 0; d < 10; d++) {
+            float expected = (float) Math.pow(ratio, Math.min(d, (count - 1) / 2));
+            assertEquals(expected, table.scale(d), DELTA);
+        }
+    }
+
+    @Test
+    public void boundedScale_matchesPowWithFloor() {
+        float ratio = 0.8f;
+        for (int count = 1; count <= 9; count++) {
+            ScaleTable table = new ScaleTable(ratio, count);
+            double floor = Math.pow(ratio, (count - 1) / 2f);
+            for (int d = 0; d < 12; d++) {
+                float expected = (float) Math.max(floor, Math.pow(ratio, d));
+                assertEquals("count=" + count + ",d=" + d, expected, table.boundedScale(d), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void matches_onlySameConfig() {
+        ScaleTable table = new ScaleTable(0.72f, 5);
+        assertTrue(table.matches(0.72f, 5));
+        assertFalse(table.matches(0.72f, 7));
+        assertFalse(table.matches(0.7f, 5));
+    }
+}
@@ -0,0 +1,38 @@
+package com.baiyu.gallerylayoutmanager;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransformCurveTest {
+
+    @Test
+    public void lookup_matchesFunctionWithinSamplingError() {
+        TransformCurve curve = new TransformCurve(3f, new TransformCurve.Function() {
+            @Override
+            public float evaluate(float distance) {
+                return (float) Math.cos(distance);
+            }
+        });
+        for (float distance = 0; distance <= 3f; distance += 0.01f) {
+            assertEquals(Math.cos(distance), curve.valueAt(distance), 1e-3);
+            assertEquals(curve.valueAt(distance), curve.valueAt(-distance), 0);
+        }
+    }
+
+    @Test
+    public void linear_clampsBeyondMaxDistance() {
+        TransformCurve curve = TransformCurve.linear(1f, 0.4f, 2f);
+        assertEquals(1f, curve.valueAt(0), 0);
+        assertEquals(0.7f, curve.valueAt(1f), 1e-6);
+        assertEquals(0.4f, curve.valueAt(2f), 1e-6);
+        assertEquals(0.4f, curve.valueAt(-7f), 1e-6);
+    }
+
+    @Test
+    public void zeroDistance_returnsEndValue() {
+        TransformCurve curve = TransformCurve.linear(1f, 0.5f, 0f);
+        assertEquals(0.5f, curve.valueAt(0), 0);
+        assertEquals(0.5f, curve.valueAt(3f), 0);
+    }
+}